@@ -4,6 +4,7 @@ import com.kogi.cards_restful.payload.request.LoginRequest;
 import com.kogi.cards_restful.payload.request.SignupRequest;
 import com.kogi.cards_restful.payload.response.JwtResponse;
 import com.kogi.cards_restful.payload.response.MessageResponse;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import com.kogi.cards_restful.services.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,6 +14,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -51,4 +53,26 @@ public class AuthController {
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
         return authService.signUp(signUpRequest);
     }
+
+    /**
+     * Used to sign out a user from every device by revoking all of their tokens.
+     * @param principal
+     * @return 200 OK if the tokens are revoked successfully, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "SignOut A User")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successful Sign Out",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MessageResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @PostMapping("/signout")
+    public ResponseEntity<?> signOutUser(@AuthenticationPrincipal UserDetailsImpl principal) {
+        if (principal == null) {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+        return authService.signOut(principal);
+    }
 }
@@ -1,16 +1,33 @@
 package com.kogi.cards_restful.controllers;
 
 import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.payload.request.BulkCardIdsRequest;
+import com.kogi.cards_restful.payload.request.BulkCardStatusRequest;
+import com.kogi.cards_restful.payload.request.BulkCreateCardRequest;
 import com.kogi.cards_restful.payload.request.CardColorFormat;
+import com.kogi.cards_restful.payload.request.CardCountMode;
+import com.kogi.cards_restful.payload.request.CardExportFormat;
+import com.kogi.cards_restful.payload.request.CardListView;
 import com.kogi.cards_restful.payload.request.CardStatusFormat;
 import com.kogi.cards_restful.payload.request.CreateCardRequest;
 import com.kogi.cards_restful.payload.request.PatchCardRequest;
+import com.kogi.cards_restful.payload.response.BulkCardUpdateResponse;
+import com.kogi.cards_restful.payload.response.BulkCreateCardResponse;
+import com.kogi.cards_restful.payload.response.CardBatchResponse;
+import com.kogi.cards_restful.payload.response.CardBoardResponse;
+import com.kogi.cards_restful.payload.response.CardCursorPage;
+import com.kogi.cards_restful.payload.response.CardImportResponse;
+import com.kogi.cards_restful.payload.response.CardNamesResponse;
 import com.kogi.cards_restful.payload.response.CardPage;
 import com.kogi.cards_restful.payload.response.CardResponse;
+import com.kogi.cards_restful.payload.response.CardStatsResponse;
 import com.kogi.cards_restful.payload.response.MessageResponse;
 import com.kogi.cards_restful.payload.response.RequestValidationErrorResponse;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import com.kogi.cards_restful.services.CardService;
+import com.kogi.cards_restful.services.CardStatsService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -19,15 +36,21 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = HttpHeaders.ETAG)
 @RestController
 @RequestMapping("/api/card")
 @Validated
@@ -35,12 +58,15 @@ public class CardController {
     @Autowired
     private CardService cardService;
 
+    @Autowired
+    private CardStatsService cardStatsService;
+
     /**
      * Used to create a card.
-     * @param authorizationHeader
+     * @param principal
      * @param createCardRequest
      * @param bindingResult
-     * @return 200 OK and CardResponse if the card is created successfully, 401 UNAUTHORIZED if the token is invalid.
+     * @return 200 OK and CardResponse if the card is created successfully, 401 UNAUTHORIZED if the request is not authenticated.
      */
     @Operation(summary = "Create a Card")
     @ApiResponses(value = {
@@ -52,7 +78,7 @@ public class CardController {
     @PostMapping("/create")
     @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
     public ResponseEntity<?> createCard(
-            @RequestHeader("Authorization") String authorizationHeader,
+            @AuthenticationPrincipal UserDetailsImpl principal,
             @Valid @RequestBody CreateCardRequest createCardRequest,
             BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
@@ -60,9 +86,73 @@ public class CardController {
                     .badRequest()
                     .body(new RequestValidationErrorResponse("Request Validation errors", bindingResult.getAllErrors()));
         }
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            return cardService.createCard(createCardRequest, jwtToken);
+        if (principal != null) {
+            return cardService.createCard(createCardRequest, principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to create many cards in one call.
+     * @param principal
+     * @param bulkCreateCardRequest
+     * @param bindingResult
+     * @return 200 OK and BulkCreateCardResponse if the cards are created successfully, 400 BAD REQUEST if any card is invalid, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Create many Cards")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cards created successfully",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkCreateCardResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Request Validation errors",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RequestValidationErrorResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @PostMapping("/create/bulk")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> createCards(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Valid @RequestBody BulkCreateCardRequest bulkCreateCardRequest,
+            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new RequestValidationErrorResponse("Request Validation errors", bindingResult.getAllErrors()));
+        }
+        if (principal != null) {
+            return cardService.createCards(bulkCreateCardRequest.getCards(), principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to import cards from an NDJSON body, one card per line, as sent to /create.
+     * @param principal
+     * @param body
+     * @return 200 OK and CardImportResponse with the imported count and the rejected lines, 401 UNAUTHORIZED if the request is not authenticated.
+     * @throws IOException if the body cannot be read.
+     */
+    @Operation(summary = "Import Cards from NDJSON, one card per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cards imported, invalid lines reported",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardImportResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> importCards(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            InputStream body) throws IOException {
+        if (principal != null) {
+            return cardService.importCards(body, principal);
         } else {
             return ResponseEntity
                     .status(401)
@@ -72,25 +162,34 @@ public class CardController {
 
     /**
      * Used to list all cards.
-     * @param authorizationHeader
+     * @param principal
+     * @param view
+     * @param count
+     * @param ifNoneMatch
      * @param pageable
-     * @return 200 OK and CardPage if the cards are listed successfully, 401 UNAUTHORIZED if the token is invalid.
+     * @return 200 OK and CardPage with a page ETag if the cards are listed successfully, 304 NOT MODIFIED if the page ETag matches If-None-Match, 401 UNAUTHORIZED if the request is not authenticated.
      */
     @Operation(summary = "List Cards")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of Cards accessible to user",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = CardPage.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "401", description = "UnAuthorized",
                     content = @Content)})
     @GetMapping("/list")
     @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
     public ResponseEntity<?> listCards(
-            @RequestHeader("Authorization") String authorizationHeader,
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Parameter(description = "SUMMARY leaves out the card description")
+            @RequestParam(name = "view", defaultValue = "FULL") CardListView view,
+            @Parameter(description = "CACHED serves the total from a short lived cache, NONE skips it and only tells if there is a next page")
+            @RequestParam(name = "count", defaultValue = "EXACT") CardCountMode count,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Pageable pageable) {
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            return cardService.list(pageable, jwtToken);
+        if (principal != null) {
+            return cardService.list(pageable, principal, view, count, ifNoneMatch);
         } else {
             return ResponseEntity
                     .status(401)
@@ -100,35 +199,216 @@ public class CardController {
 
     /**
      * Used to search cards.
-     * @param authorizationHeader
+     * @param principal
      * @param name
      * @param description
      * @param color
      * @param date
      * @param status
+     * @param view
+     * @param count
+     * @param ifNoneMatch
      * @param pageable
-     * @return 200 OK and CardPage if the cards are listed successfully, 401 UNAUTHORIZED if the token is invalid.
+     * @return 200 OK and CardPage with a page ETag if the cards are listed successfully, 304 NOT MODIFIED if the page ETag matches If-None-Match, 401 UNAUTHORIZED if the request is not authenticated.
      */
     @Operation(summary = "Cards by name,description,color,date,status. Sorted by any field")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of Cards accessible to user filtered and sorted",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = CardPage.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "401", description = "UnAuthorized",
                     content = @Content)})
     @GetMapping("/search")
     @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
     public ResponseEntity<?> searchCards(
-            @RequestHeader("Authorization") String authorizationHeader,
+            @AuthenticationPrincipal UserDetailsImpl principal,
             @RequestParam(name = "name", required = false) String name,
             @RequestParam(name = "description", required = false) String description,
             @RequestParam(name = "color", required = false) @CardColorFormat  String color,
             @RequestParam(name = "date", required = false) LocalDate date,
             @RequestParam(name = "status", required = false)@CardStatusFormat String status,
+            @Parameter(description = "SUMMARY leaves out the card description")
+            @RequestParam(name = "view", defaultValue = "FULL") CardListView view,
+            @Parameter(description = "CACHED serves the total from a short lived cache, NONE skips it and only tells if there is a next page")
+            @RequestParam(name = "count", defaultValue = "EXACT") CardCountMode count,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Pageable pageable) {
+        if (principal != null) {
+            return cardService.search(pageable, principal, name, description, color, date, status, view, count, ifNoneMatch);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to search the name and description of cards by word prefixes.
+     * @param principal
+     * @param q
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @param pageable
+     * @return 200 OK and CardPage with a page ETag if the cards are listed successfully, 304 NOT MODIFIED if the page ETag matches If-None-Match, 400 BAD REQUEST if the text has no word, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Cards whose name or description has words starting with every word of the text. Most relevant first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of Cards accessible to user matching the text",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardPage.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "The text has no word",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/search/text")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> searchCardsByText(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Parameter(description = "Words to look for, matched ignoring case as prefixes of the words of the name and description")
+            @RequestParam(name = "q") String q,
+            @Parameter(description = "SUMMARY leaves out the card description")
+            @RequestParam(name = "view", defaultValue = "FULL") CardListView view,
+            @Parameter(description = "CACHED serves the total from a short lived cache, NONE skips it and only tells if there is a next page")
+            @RequestParam(name = "count", defaultValue = "EXACT") CardCountMode count,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             Pageable pageable) {
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            return cardService.search(pageable, jwtToken, name, description, color, date, status);
+        if (principal != null) {
+            return cardService.searchText(pageable, principal, q, view, count, ifNoneMatch);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to list cards with keyset pagination, newest first. No total count is computed.
+     * @param principal
+     * @param cursor
+     * @param size
+     * @return 200 OK and CardCursorPage if the cards are listed successfully, 400 BAD REQUEST if the cursor is invalid, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "List Cards by cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of Cards accessible to user and the cursor of the next page",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardCursorPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/list/cursor")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> listCardsByCursor(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        if (principal != null) {
+            return cardService.listAfter(cursor, size, principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to search cards with keyset pagination, newest first. No total count is computed.
+     * @param principal
+     * @param cursor
+     * @param size
+     * @param name
+     * @param description
+     * @param color
+     * @param date
+     * @param status
+     * @return 200 OK and CardCursorPage if the cards are listed successfully, 400 BAD REQUEST if the cursor is invalid, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Cards by name,description,color,date,status. Paged by cursor, newest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of Cards accessible to user filtered and the cursor of the next page",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardCursorPage.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/search/cursor")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> searchCardsByCursor(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "description", required = false) String description,
+            @RequestParam(name = "color", required = false) @CardColorFormat String color,
+            @RequestParam(name = "date", required = false) LocalDate date,
+            @RequestParam(name = "status", required = false) @CardStatusFormat String status) {
+        if (principal != null) {
+            return cardService.searchAfter(cursor, size, principal, name, description, color, date, status);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to get the newest cards of every status for a board, in one request.
+     * @param principal
+     * @param size
+     * @return 200 OK and CardBoardResponse with one column per status, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Newest Cards accessible to user for every status, with the total of each status")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "One column of Cards per status",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardBoardResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/board")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> board(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Parameter(description = "Cards per status, at most 100")
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        if (principal != null) {
+            return cardService.board(size, principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to suggest card names for autocompletion.
+     * @param principal
+     * @param prefix
+     * @param size
+     * @return 200 OK and CardNamesResponse with the names of the user cards starting with the prefix, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Names of the user Cards starting with a prefix, ignoring case")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Card names in alphabetical order",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardNamesResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/names")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> suggestNames(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam(name = "prefix", defaultValue = "") String prefix,
+            @Parameter(description = "Names to return, at most 50")
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        if (principal != null) {
+            return cardService.suggestNames(prefix, size, principal);
         } else {
             return ResponseEntity
                     .status(401)
@@ -138,15 +418,18 @@ public class CardController {
 
     /**
      * Used to get a card by its id.
-     * @param authorizationHeader
+     * @param principal
      * @param id
-     * @return 200 OK and CardResponse if the card is retrieved successfully, 401 UNAUTHORIZED if the token is invalid. 400 BAD REQUEST if the card is not found because of role
+     * @param ifNoneMatch
+     * @return 200 OK and CardResponse with the card version as ETag if the card is retrieved successfully, 304 NOT MODIFIED if the card version matches If-None-Match, 401 UNAUTHORIZED if the request is not authenticated. 400 BAD REQUEST if the card is not found because of role
      */
     @Operation(summary = "Get one card by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Card object if accessible by User",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = Card.class))}),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "401", description = "UnAuthorized",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Card Not Found for given id and user",
@@ -155,11 +438,42 @@ public class CardController {
     @GetMapping("/card")
     @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
     public ResponseEntity<?> card(
-            @RequestHeader("Authorization") String authorizationHeader,
-            @RequestParam(name = "id") Long id) {
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            return cardService.getOne(id, jwtToken);
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam(name = "id") Long id,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (principal != null) {
+            return cardService.getOne(id, principal, ifNoneMatch);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to get many cards by their ids in one request.
+     * @param principal
+     * @param ids
+     * @return 200 OK and CardBatchResponse with the cards found and the ids not found for the user, 400 BAD REQUEST if no ids or more than 100 ids are given, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Get many cards by their IDs")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cards accessible by User and the ids not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardBatchResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "No ids or more than 100 ids",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)
+    })
+    @GetMapping("/cards")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> cards(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Parameter(description = "Card ids, comma separated or repeated, at most 100")
+            @RequestParam(name = "ids") List<Long> ids) {
+        if (principal != null) {
+            return cardService.getMany(ids, principal);
         } else {
             return ResponseEntity
                     .status(401)
@@ -167,28 +481,88 @@ public class CardController {
         }
     }
 
+    /**
+     * Used to get the card counts per status and per color shown in the board header.
+     * @param principal
+     * @return 200 OK and CardStatsResponse with the counts of the user cards, or of all cards for admins, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Count Cards accessible to user per status and per color")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Card counts of the user, or of all users for admins",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CardStatsResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> cardStats(
+            @AuthenticationPrincipal UserDetailsImpl principal) {
+        if (principal != null) {
+            return cardStatsService.getStats(principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
+
+    /**
+     * Used to export every card accessible to the user in one streamed file.
+     * @param principal
+     * @param format
+     * @return 200 OK and the cards as NDJSON or CSV, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Export all Cards accessible to user as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cards accessible to user, one per line",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam(name = "format", defaultValue = "NDJSON") CardExportFormat format) {
+        if (principal != null) {
+            return cardService.export(principal, format);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .build();
+        }
+    }
+
     /**
      * Used to update a card.
-     * @param authorizationHeader
+     * @param principal
      * @param id
+     * @param ifMatch
+     * @param prefer
      * @param partialUpdateDto
      * @param bindingResult
-     * @return 200 OK and CardResponse if the card is updated successfully, 401 UNAUTHORIZED if the token is invalid. 400 BAD REQUEST if the card is not found because of role
+     * @return 200 OK and CardResponse if the card is updated successfully, 204 NO CONTENT instead if Prefer asks for return=minimal, 401 UNAUTHORIZED if the request is not authenticated. 400 BAD REQUEST if the card is not found because of role, 412 PRECONDITION FAILED if If-Match does not match the card version
      */
     @Operation(summary = "Update a Card characteristics")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Card object if accessible by User",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = CardResponse.class))}),
+            @ApiResponse(responseCode = "204", description = "Card updated, not returned because of Prefer: return=minimal",
+                    content = @Content),
             @ApiResponse(responseCode = "401", description = "UnAuthorized",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Card Not Found for given id and user",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Card was modified since the version given in If-Match",
                     content = @Content)
     })
     @PatchMapping("/update/{id}")
     public ResponseEntity<?> patchCard(
-            @RequestHeader("Authorization") String authorizationHeader,
+            @AuthenticationPrincipal UserDetailsImpl principal,
             @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal answers 204 without reading the card back")
+            @RequestHeader(name = "Prefer", required = false) String prefer,
             @Valid @RequestBody PatchCardRequest partialUpdateDto
             , BindingResult bindingResult) {
         if (bindingResult.hasErrors()) {
@@ -196,9 +570,9 @@ public class CardController {
                     .badRequest()
                     .body(new RequestValidationErrorResponse("Request Validation errors", bindingResult.getAllErrors()));
         }
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            return cardService.patchCard(id, partialUpdateDto, jwtToken);
+        if (principal != null) {
+            boolean returnMinimal = prefer != null && prefer.contains("return=minimal");
+            return cardService.patchCard(id, partialUpdateDto, principal, ifMatch, !returnMinimal);
         } else {
             return ResponseEntity
                     .status(401)
@@ -207,9 +581,10 @@ public class CardController {
     }
     /**
      * Used to delete a card.
-     * @param authorizationHeader
+     * @param principal
      * @param id
-     * @return 200 OK and MessageResponse if the card is deleted successfully, 401 UNAUTHORIZED if the token is invalid. 400 BAD REQUEST if the card is not found because of role
+     * @param ifMatch
+     * @return 200 OK and MessageResponse if the card is deleted successfully, 401 UNAUTHORIZED if the request is not authenticated. 400 BAD REQUEST if the card is not found because of role, 412 PRECONDITION FAILED if If-Match does not match the card version
      */
     @Operation(summary = "Delete a Card")
     @ApiResponses(value = {
@@ -219,16 +594,18 @@ public class CardController {
             @ApiResponse(responseCode = "401", description = "UnAuthorized",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Card Not Found for given id and user",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "Card was modified since the version given in If-Match",
                     content = @Content)
     })
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<?> deleteCard(
-            @RequestHeader("Authorization") String authorizationHeader,
-            @Valid @PathVariable Long id) {
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Valid @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            return cardService.deleteCard(id, jwtToken);
+        if (principal != null) {
+            return cardService.deleteCard(id, principal, ifMatch);
         } else {
             return ResponseEntity
                     .status(401)
@@ -236,6 +613,78 @@ public class CardController {
         }
     }
 
-}
+    /**
+     * Used to delete many cards in one call.
+     * @param principal
+     * @param bulkCardIdsRequest
+     * @param bindingResult
+     * @return 200 OK and BulkCardUpdateResponse with the number of cards deleted, 400 BAD REQUEST if the ids are invalid, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Delete many Cards")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of Cards accessible by User that were deleted",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkCardUpdateResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Request Validation errors",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RequestValidationErrorResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @PostMapping("/delete/bulk")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> deleteCards(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Valid @RequestBody BulkCardIdsRequest bulkCardIdsRequest,
+            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new RequestValidationErrorResponse("Request Validation errors", bindingResult.getAllErrors()));
+        }
+        if (principal != null) {
+            return cardService.deleteCards(bulkCardIdsRequest.getIds(), principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
 
+    /**
+     * Used to move many cards to a status in one call.
+     * @param principal
+     * @param bulkCardStatusRequest
+     * @param bindingResult
+     * @return 200 OK and BulkCardUpdateResponse with the number of cards updated, 400 BAD REQUEST if the ids or the status are invalid, 401 UNAUTHORIZED if the request is not authenticated.
+     */
+    @Operation(summary = "Change the status of many Cards")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of Cards accessible by User that changed status",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BulkCardUpdateResponse.class))}),
+            @ApiResponse(responseCode = "400", description = "Request Validation errors",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = RequestValidationErrorResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "UnAuthorized",
+                    content = @Content)})
+    @PatchMapping("/update/bulk/status")
+    @PreAuthorize("hasRole('MEMBER') or hasRole('ADMIN')")
+    public ResponseEntity<?> updateCardStatuses(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @Valid @RequestBody BulkCardStatusRequest bulkCardStatusRequest,
+            BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new RequestValidationErrorResponse("Request Validation errors", bindingResult.getAllErrors()));
+        }
+        if (principal != null) {
+            return cardService.updateCardStatuses(bulkCardStatusRequest.getIds(), bulkCardStatusRequest.getStatus(), principal);
+        } else {
+            return ResponseEntity
+                    .status(401)
+                    .body(new MessageResponse("Invalid token"));
+        }
+    }
 
+}
@@ -1,17 +1,31 @@
 package com.kogi.cards_restful.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cards")
+@Table(name = "cards",
+        indexes = {
+                @Index(name = "idx_cards_creator_created", columnList = "creator_id, created_at, id"),
+                @Index(name = "idx_cards_creator_status_created", columnList = "creator_id, card_status, created_at, id"),
+                @Index(name = "idx_cards_status_created", columnList = "card_status, created_at, id"),
+                @Index(name = "idx_cards_creator_color", columnList = "creator_id, color"),
+                @Index(name = "idx_cards_creator_name", columnList = "creator_id, name"),
+                @Index(name = "idx_cards_created", columnList = "created_at, id")
+        })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_seq")
+    @SequenceGenerator(name = "card_seq", sequenceName = "card_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -28,9 +42,13 @@ public class Card {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User creator;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Card() {
     }
 
@@ -94,7 +112,20 @@ public class Card {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getCreator() {
         return creator.getEmail();
     }
+
+    @JsonIgnore
+    public Long getCreatorId() {
+        return creator != null ? creator.getId() : null;
+    }
 }
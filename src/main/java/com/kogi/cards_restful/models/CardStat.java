@@ -0,0 +1,70 @@
+package com.kogi.cards_restful.models;
+
+import jakarta.persistence.*;
+
+/**
+ * Number of cards of one creator having one status or one color, or number of writes to the cards of the creator.
+ */
+@Entity
+@Table(name = "card_stats")
+@IdClass(CardStatId.class)
+public class CardStat {
+  @Id
+  @Column(name = "creator_id")
+  private Long creatorId;
+
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(length = 10)
+  private CardStatDimension dimension;
+
+  @Id
+  @Column(name = "stat_value")
+  private String value;
+
+  @Column(name = "card_count", nullable = false)
+  private long count;
+
+  public CardStat() {
+
+  }
+
+  public CardStat(Long creatorId, CardStatDimension dimension, String value, long count) {
+    this.creatorId = creatorId;
+    this.dimension = dimension;
+    this.value = value;
+    this.count = count;
+  }
+
+  public Long getCreatorId() {
+    return creatorId;
+  }
+
+  public void setCreatorId(Long creatorId) {
+    this.creatorId = creatorId;
+  }
+
+  public CardStatDimension getDimension() {
+    return dimension;
+  }
+
+  public void setDimension(CardStatDimension dimension) {
+    this.dimension = dimension;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public void setValue(String value) {
+    this.value = value;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+}
@@ -0,0 +1,9 @@
+package com.kogi.cards_restful.models;
+
+/**
+ * What a card_stats row counts. CHANGES rows are not card counts: they count the writes to the cards of a
+ * creator, under an empty stat_value, and only ever grow.
+ */
+public enum CardStatDimension {
+  STATUS, COLOR, CHANGES
+}
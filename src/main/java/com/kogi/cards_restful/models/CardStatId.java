@@ -0,0 +1,44 @@
+package com.kogi.cards_restful.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Primary key of a CardStat.
+ */
+public class CardStatId implements Serializable {
+  private Long creatorId;
+
+  private CardStatDimension dimension;
+
+  private String value;
+
+  public CardStatId() {
+
+  }
+
+  public CardStatId(Long creatorId, CardStatDimension dimension, String value) {
+    this.creatorId = creatorId;
+    this.dimension = dimension;
+    this.value = value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CardStatId)) {
+      return false;
+    }
+    CardStatId other = (CardStatId) o;
+    return Objects.equals(creatorId, other.creatorId)
+            && dimension == other.dimension
+            && Objects.equals(value, other.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(creatorId, dimension, value);
+  }
+}
@@ -0,0 +1,21 @@
+package com.kogi.cards_restful.payload.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkCardIdsRequest {
+	@NotEmpty(message = "At least one id is required")
+	@Size(max = 500, message = "At most 500 cards can be changed at once")
+	private List<@NotNull Long> ids;
+
+	public List<Long> getIds() {
+		return ids;
+	}
+
+	public void setIds(List<Long> ids) {
+		this.ids = ids;
+	}
+}
@@ -0,0 +1,17 @@
+package com.kogi.cards_restful.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class BulkCardStatusRequest extends BulkCardIdsRequest {
+	@NotBlank
+	@CardStatusFormat
+	private String status;
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+}
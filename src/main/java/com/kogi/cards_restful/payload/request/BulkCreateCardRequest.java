@@ -0,0 +1,22 @@
+package com.kogi.cards_restful.payload.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkCreateCardRequest {
+	@NotEmpty(message = "At least one card is required")
+	@Size(max = 500, message = "At most 500 cards can be created at once")
+	@Valid
+	private List<CreateCardRequest> cards;
+
+	public List<CreateCardRequest> getCards() {
+		return cards;
+	}
+
+	public void setCards(List<CreateCardRequest> cards) {
+		this.cards = cards;
+	}
+}
@@ -0,0 +1,19 @@
+package com.kogi.cards_restful.payload.request;
+
+/**
+ * This enum is used to pick how the total of a list or search page is computed.
+ */
+public enum CardCountMode {
+    /**
+     * The total is counted for every page.
+     */
+    EXACT,
+    /**
+     * The total is served from a short lived cache and may lag behind recent writes.
+     */
+    CACHED,
+    /**
+     * No total is computed, the response only tells if there is a next page.
+     */
+    NONE
+}
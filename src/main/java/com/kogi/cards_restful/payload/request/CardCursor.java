@@ -0,0 +1,65 @@
+package com.kogi.cards_restful.payload.request;
+
+import com.kogi.cards_restful.payload.response.CardView;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * This class is used to hold the position of the last card of a keyset page.
+ * Clients only see it as an opaque string.
+ */
+public class CardCursor {
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public CardCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * This method is used to build the cursor pointing after a card.
+     * @param card
+     * @return a cursor positioned on the card.
+     */
+    public static CardCursor of(CardView card) {
+        return new CardCursor(card.getCreatedAt(), card.getId());
+    }
+
+    /**
+     * This method is used to read a cursor sent back by a client.
+     * @param value
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if the value is not a cursor issued by this service.
+     */
+    public static CardCursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(',');
+            return new CardCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * This method is used to turn the cursor into the opaque string returned to clients.
+     * @return the encoded cursor.
+     */
+    public String encode() {
+        String value = createdAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
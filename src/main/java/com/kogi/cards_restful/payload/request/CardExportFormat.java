@@ -0,0 +1,33 @@
+package com.kogi.cards_restful.payload.request;
+
+import org.springframework.http.MediaType;
+
+/**
+ * This enum is used to pick the file format of a card export.
+ */
+public enum CardExportFormat {
+    /**
+     * One JSON card per line.
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "cards.ndjson"),
+    /**
+     * Comma separated values with a header row.
+     */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "cards.csv");
+
+    private final MediaType mediaType;
+    private final String fileName;
+
+    CardExportFormat(MediaType mediaType, String fileName) {
+        this.mediaType = mediaType;
+        this.fileName = fileName;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
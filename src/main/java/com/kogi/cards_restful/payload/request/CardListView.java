@@ -0,0 +1,15 @@
+package com.kogi.cards_restful.payload.request;
+
+/**
+ * This enum is used to pick how much of each card a list or search page returns.
+ */
+public enum CardListView {
+    /**
+     * Every card field, including the description.
+     */
+    FULL,
+    /**
+     * Every card field except the description, which is never read from the database.
+     */
+    SUMMARY
+}
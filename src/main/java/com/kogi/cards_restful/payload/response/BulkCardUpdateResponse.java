@@ -0,0 +1,37 @@
+package com.kogi.cards_restful.payload.response;
+
+public class BulkCardUpdateResponse {
+  private String message;
+  private int requested;
+  private int affected;
+
+  public BulkCardUpdateResponse(String message, int requested, int affected) {
+    this.message = message;
+    this.requested = requested;
+    this.affected = affected;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public int getRequested() {
+    return requested;
+  }
+
+  public void setRequested(int requested) {
+    this.requested = requested;
+  }
+
+  public int getAffected() {
+    return affected;
+  }
+
+  public void setAffected(int affected) {
+    this.affected = affected;
+  }
+}
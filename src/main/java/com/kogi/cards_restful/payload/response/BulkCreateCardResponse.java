@@ -0,0 +1,29 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class BulkCreateCardResponse {
+  private String message;
+  private List<Long> ids;
+
+  public BulkCreateCardResponse(String message, List<Long> ids) {
+    this.message = message;
+    this.ids = ids;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public List<Long> getIds() {
+    return ids;
+  }
+
+  public void setIds(List<Long> ids) {
+    this.ids = ids;
+  }
+}
@@ -0,0 +1,29 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class CardBatchResponse {
+  private List<CardView> cards;
+  private List<Long> missingIds;
+
+  public CardBatchResponse(List<CardView> cards, List<Long> missingIds) {
+    this.cards = cards;
+    this.missingIds = missingIds;
+  }
+
+  public List<CardView> getCards() {
+    return cards;
+  }
+
+  public void setCards(List<CardView> cards) {
+    this.cards = cards;
+  }
+
+  public List<Long> getMissingIds() {
+    return missingIds;
+  }
+
+  public void setMissingIds(List<Long> missingIds) {
+    this.missingIds = missingIds;
+  }
+}
@@ -0,0 +1,39 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class CardBoardColumn {
+  private String status;
+  private long total;
+  private List<CardView> cards;
+
+  public CardBoardColumn(String status, long total, List<CardView> cards) {
+    this.status = status;
+    this.total = total;
+    this.cards = cards;
+  }
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public List<CardView> getCards() {
+    return cards;
+  }
+
+  public void setCards(List<CardView> cards) {
+    this.cards = cards;
+  }
+}
@@ -0,0 +1,19 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class CardBoardResponse {
+  private List<CardBoardColumn> columns;
+
+  public CardBoardResponse(List<CardBoardColumn> columns) {
+    this.columns = columns;
+  }
+
+  public List<CardBoardColumn> getColumns() {
+    return columns;
+  }
+
+  public void setColumns(List<CardBoardColumn> columns) {
+    this.columns = columns;
+  }
+}
@@ -0,0 +1,33 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class CardCursorPage {
+  private List<CardView> content;
+  private String nextCursor;
+
+  public CardCursorPage(List<CardView> content, String nextCursor) {
+    this.content = content;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<CardView> getContent() {
+    return content;
+  }
+
+  public void setContent(List<CardView> content) {
+    this.content = content;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  public boolean isHasNext() {
+    return nextCursor != null;
+  }
+}
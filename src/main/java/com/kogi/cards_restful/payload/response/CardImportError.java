@@ -0,0 +1,27 @@
+package com.kogi.cards_restful.payload.response;
+
+public class CardImportError {
+  private long line;
+  private String message;
+
+  public CardImportError(long line, String message) {
+    this.line = line;
+    this.message = message;
+  }
+
+  public long getLine() {
+    return line;
+  }
+
+  public void setLine(long line) {
+    this.line = line;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
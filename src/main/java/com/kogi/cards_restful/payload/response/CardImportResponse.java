@@ -0,0 +1,59 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class CardImportResponse {
+  private String message;
+  private long imported;
+  private long rejected;
+  private List<CardImportError> errors;
+  private boolean errorsTruncated;
+
+  public CardImportResponse(String message, long imported, long rejected, List<CardImportError> errors, boolean errorsTruncated) {
+    this.message = message;
+    this.imported = imported;
+    this.rejected = rejected;
+    this.errors = errors;
+    this.errorsTruncated = errorsTruncated;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  public void setImported(long imported) {
+    this.imported = imported;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public void setRejected(long rejected) {
+    this.rejected = rejected;
+  }
+
+  public List<CardImportError> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(List<CardImportError> errors) {
+    this.errors = errors;
+  }
+
+  public boolean isErrorsTruncated() {
+    return errorsTruncated;
+  }
+
+  public void setErrorsTruncated(boolean errorsTruncated) {
+    this.errorsTruncated = errorsTruncated;
+  }
+}
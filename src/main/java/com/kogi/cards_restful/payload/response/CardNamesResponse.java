@@ -0,0 +1,29 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.List;
+
+public class CardNamesResponse {
+  private String prefix;
+  private List<String> names;
+
+  public CardNamesResponse(String prefix, List<String> names) {
+    this.prefix = prefix;
+    this.names = names;
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public void setPrefix(String prefix) {
+    this.prefix = prefix;
+  }
+
+  public List<String> getNames() {
+    return names;
+  }
+
+  public void setNames(List<String> names) {
+    this.names = names;
+  }
+}
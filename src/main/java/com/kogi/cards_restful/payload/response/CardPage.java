@@ -1,13 +1,12 @@
 package com.kogi.cards_restful.payload.response;
 
-import com.kogi.cards_restful.models.Card;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 
-public class CardPage extends PageImpl<Card> {
-    public CardPage(List<Card> content, Pageable pageable, long total) {
+public class CardPage extends PageImpl<CardView> {
+    public CardPage(List<CardView> content, Pageable pageable, long total) {
         super(content, pageable, total);
     }
 }
\ No newline at end of file
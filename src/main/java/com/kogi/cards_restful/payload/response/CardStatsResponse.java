@@ -0,0 +1,49 @@
+package com.kogi.cards_restful.payload.response;
+
+import java.util.Map;
+
+public class CardStatsResponse {
+  private boolean global;
+  private long total;
+  private Map<String, Long> byStatus;
+  private Map<String, Long> byColor;
+
+  public CardStatsResponse(boolean global, long total, Map<String, Long> byStatus, Map<String, Long> byColor) {
+    this.global = global;
+    this.total = total;
+    this.byStatus = byStatus;
+    this.byColor = byColor;
+  }
+
+  public boolean isGlobal() {
+    return global;
+  }
+
+  public void setGlobal(boolean global) {
+    this.global = global;
+  }
+
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  public Map<String, Long> getByStatus() {
+    return byStatus;
+  }
+
+  public void setByStatus(Map<String, Long> byStatus) {
+    this.byStatus = byStatus;
+  }
+
+  public Map<String, Long> getByColor() {
+    return byColor;
+  }
+
+  public void setByColor(Map<String, Long> byColor) {
+    this.byColor = byColor;
+  }
+}
@@ -0,0 +1,56 @@
+package com.kogi.cards_restful.payload.response;
+
+import com.kogi.cards_restful.models.CardStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * This class is used to return a card without its description, read by a projection query.
+ */
+public class CardSummary {
+  private final Long id;
+  private final String name;
+  private final String color;
+  private final CardStatus cardStatus;
+  private final LocalDateTime createdAt;
+  private final String creator;
+  private final Long version;
+
+  public CardSummary(Long id, String name, String color, CardStatus cardStatus, LocalDateTime createdAt, String creator, Long version) {
+    this.id = id;
+    this.name = name;
+    this.color = color;
+    this.cardStatus = cardStatus;
+    this.createdAt = createdAt;
+    this.creator = creator;
+    this.version = version;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getColor() {
+    return color;
+  }
+
+  public CardStatus getCardStatus() {
+    return cardStatus;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public String getCreator() {
+    return creator;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+}
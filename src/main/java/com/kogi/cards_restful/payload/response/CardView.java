@@ -0,0 +1,22 @@
+package com.kogi.cards_restful.payload.response;
+
+import com.kogi.cards_restful.models.CardStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * This class is used to return a card read by a projection query instead of a managed entity.
+ * It serializes to the same JSON as {@link com.kogi.cards_restful.models.Card}.
+ */
+public class CardView extends CardSummary {
+  private final String description;
+
+  public CardView(Long id, String name, String description, String color, CardStatus cardStatus, LocalDateTime createdAt, String creator, Long version) {
+    super(id, name, color, cardStatus, createdAt, creator, version);
+    this.description = description;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+}
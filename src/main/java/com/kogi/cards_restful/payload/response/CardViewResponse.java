@@ -0,0 +1,30 @@
+package com.kogi.cards_restful.payload.response;
+
+/**
+ * Same body as CardResponse, for a card read as a projection instead of an entity.
+ */
+public class CardViewResponse {
+  private String message;
+  private CardView card;
+
+  public CardViewResponse(String message, CardView card) {
+    this.message = message;
+    this.card = card;
+  }
+
+  public CardView getCard() {
+    return card;
+  }
+
+  public void setCard(CardView card) {
+    this.card = card;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+}
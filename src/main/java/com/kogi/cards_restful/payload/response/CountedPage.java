@@ -0,0 +1,25 @@
+package com.kogi.cards_restful.payload.response;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * This class is used to return a page together with how its total was obtained.
+ */
+public class CountedPage<T> extends PageImpl<T> {
+    private final boolean totalExact;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+        super(content, pageable, total);
+        this.totalExact = totalExact;
+    }
+
+    /**
+     * @return true if the total was counted for this page, false if it was served from the count cache.
+     */
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+}
@@ -0,0 +1,17 @@
+package com.kogi.cards_restful.repository;
+
+/**
+ * This interface is used to read how many of a set of cards share a creator, a status and a color.
+ */
+public interface CardGroupCount {
+    Long getCreatorId();
+
+    /**
+     * @return the CardStatus ordinal, as stored.
+     */
+    Integer getCardStatus();
+
+    String getColor();
+
+    Long getCardCount();
+}
@@ -0,0 +1,17 @@
+package com.kogi.cards_restful.repository;
+
+/**
+ * This interface is used to read the columns of a card that a patch needs to know before updating it.
+ */
+public interface CardPatchState {
+    Long getCreatorId();
+
+    /**
+     * @return the CardStatus ordinal, as stored.
+     */
+    Integer getCardStatus();
+
+    String getColor();
+
+    Long getVersion();
+}
@@ -1,26 +1,135 @@
 package com.kogi.cards_restful.repository;
 
 import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.models.CardStatus;
 import com.kogi.cards_restful.models.User;
+import com.kogi.cards_restful.payload.response.CardView;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface CardRepository extends PagingAndSortingRepository<Card, Long>, JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
+public interface CardRepository extends PagingAndSortingRepository<Card, Long>, JpaRepository<Card, Long>, JpaSpecificationExecutor<Card>, CardRepositoryCustom {
+    /**
+     * Fetch size of the export streams, Integer.MIN_VALUE, which makes MySQL Connector/J stream the rows one by one
+     * instead of reading the whole result. No other statement may run on the connection until the stream is closed.
+     */
+    String EXPORT_FETCH_SIZE = "-2147483648";
+
+    @EntityGraph(attributePaths = "creator")
     Page<Card> findByCreator(User user, Pageable pageable);
+    @EntityGraph(attributePaths = "creator")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Card> findByIdAndCreator(Long id,User user);
+    @EntityGraph(attributePaths = "creator")
     Optional<Card> findById(Long id);
     Page<Card> findByCreator(User user,Specification <Card> finalSpec, Pageable pageable);
+    @EntityGraph(attributePaths = "creator")
+    Page<Card> findAll(Pageable pageable);
+    @EntityGraph(attributePaths = "creator")
     Page<Card> findAll(Specification <Card> finalSpec,Pageable pageable);
+
+    @Query("select c.version from Card c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select c.version from Card c where c.id = :id and c.creator.id = :creatorId")
+    Optional<Long> findVersionByIdAndCreatorId(@Param("id") Long id, @Param("creatorId") Long creatorId);
+
+    @Query("select new com.kogi.cards_restful.payload.response.CardView(c.id, c.name, c.description, c.color, c.cardStatus, c.createdAt, cr.email, c.version)"
+            + " from Card c left join c.creator cr order by c.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    Stream<CardView> streamAll();
+
+    @Query("select new com.kogi.cards_restful.payload.response.CardView(c.id, c.name, c.description, c.color, c.cardStatus, c.createdAt, cr.email, c.version)"
+            + " from Card c left join c.creator cr where c.creator.id = :creatorId order by c.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    Stream<CardView> streamByCreatorId(@Param("creatorId") Long creatorId);
+
+    @Query("select new com.kogi.cards_restful.payload.response.CardView(c.id, c.name, c.description, c.color, c.cardStatus, c.createdAt, cr.email, c.version)"
+            + " from Card c left join c.creator cr where c.id in :ids")
+    List<CardView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.kogi.cards_restful.payload.response.CardView(c.id, c.name, c.description, c.color, c.cardStatus, c.createdAt, cr.email, c.version)"
+            + " from Card c left join c.creator cr where c.id in :ids and c.creator.id = :creatorId")
+    List<CardView> findViewsByIdInAndCreatorId(@Param("ids") Collection<Long> ids, @Param("creatorId") Long creatorId);
+
+    /**
+     * Reads the distinct card names of a creator from the (creator_id, name) index, for the name autocomplete.
+     */
+    @Query("select distinct c.name from Card c where c.creator.id = :creatorId and c.name is not null")
+    List<String> findNamesByCreatorId(@Param("creatorId") Long creatorId, Pageable pageable);
+
+    /**
+     * Reads the distinct card names of a creator starting with a prefix, in which % _ and ! are escaped with !.
+     */
+    @Query("select distinct c.name from Card c where c.creator.id = :creatorId and c.name like concat(:prefix, '%') escape '!' order by c.name")
+    List<String> findNamesByCreatorIdStartingWith(@Param("creatorId") Long creatorId, @Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * Locks the given cards until the end of the transaction and counts them per creator, status and color,
+     * so the counts match what a following bulk statement on the same ids changes.
+     */
+    @Query(nativeQuery = true, value = "SELECT creator_id AS creatorId, card_status AS cardStatus, color AS color, COUNT(*) AS cardCount"
+            + " FROM cards WHERE id IN (:ids) GROUP BY creator_id, card_status, color FOR UPDATE")
+    List<CardGroupCount> lockGroupsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(nativeQuery = true, value = "SELECT creator_id AS creatorId, card_status AS cardStatus, color AS color, COUNT(*) AS cardCount"
+            + " FROM cards WHERE id IN (:ids) AND creator_id = :creatorId GROUP BY creator_id, card_status, color FOR UPDATE")
+    List<CardGroupCount> lockGroupsByIdInAndCreatorId(@Param("ids") Collection<Long> ids, @Param("creatorId") Long creatorId);
+
+    /**
+     * Locks a card until the end of the transaction and reads the columns a patch moves the card stats by.
+     */
+    @Query(nativeQuery = true, value = "SELECT creator_id AS creatorId, card_status AS cardStatus, color AS color, version AS version"
+            + " FROM cards WHERE id = :id FOR UPDATE")
+    Optional<CardPatchState> lockPatchStateById(@Param("id") Long id);
+
+    @Query(nativeQuery = true, value = "SELECT creator_id AS creatorId, card_status AS cardStatus, color AS color, version AS version"
+            + " FROM cards WHERE id = :id AND creator_id = :creatorId FOR UPDATE")
+    Optional<CardPatchState> lockPatchStateByIdAndCreatorId(@Param("id") Long id, @Param("creatorId") Long creatorId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Card c where c.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Card c where c.id in :ids and c.creator.id = :creatorId")
+    int deleteByIdInAndCreatorId(@Param("ids") Collection<Long> ids, @Param("creatorId") Long creatorId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Card c set c.cardStatus = :status, c.version = c.version + 1 where c.id in :ids and c.cardStatus <> :status")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") CardStatus status);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Card c set c.cardStatus = :status, c.version = c.version + 1"
+            + " where c.id in :ids and c.creator.id = :creatorId and c.cardStatus <> :status")
+    int updateStatusByIdInAndCreatorId(@Param("ids") Collection<Long> ids, @Param("creatorId") Long creatorId, @Param("status") CardStatus status);
+
+    @Query("select c.cardStatus, count(c) from Card c where c.creator.id = :creatorId and c.cardStatus is not null group by c.cardStatus")
+    List<Object[]> countByStatusForCreatorId(@Param("creatorId") Long creatorId);
+
+    @Query("select c.color, count(c) from Card c where c.creator.id = :creatorId group by c.color")
+    List<Object[]> countByColorForCreatorId(@Param("creatorId") Long creatorId);
 }
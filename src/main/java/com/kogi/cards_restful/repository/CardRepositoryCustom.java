@@ -0,0 +1,97 @@
+package com.kogi.cards_restful.repository;
+
+import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.payload.request.CardCursor;
+import com.kogi.cards_restful.payload.request.CardListView;
+import com.kogi.cards_restful.payload.request.PatchCardRequest;
+import com.kogi.cards_restful.payload.response.CardSummary;
+import com.kogi.cards_restful.payload.response.CardView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CardRepositoryCustom {
+    /**
+     * This method is used to read one page of cards as projections, without loading managed entities.
+     * @param spec filter applied to the cards, can be null.
+     * @param pageable
+     * @return the page of cards, the count query is skipped when the page size tells the total.
+     */
+    Page<CardView> findViews(Specification<Card> spec, Pageable pageable);
+
+    /**
+     * This method is used to read one page of cards as projections without their description.
+     * The description column is left out of the select list.
+     * @param spec filter applied to the cards, can be null.
+     * @param pageable
+     * @return the page of cards, the count query is skipped when the page size tells the total.
+     */
+    Page<CardSummary> findSummaries(Specification<Card> spec, Pageable pageable);
+
+    /**
+     * This method is used to read the cards of a page without counting the total.
+     * @param spec filter applied to the cards, can be null.
+     * @param pageable
+     * @param view
+     * @param limit maximum number of cards to return, starting at the page offset.
+     * @return the cards, as CardView for the full view and as CardSummary for the summary view.
+     */
+    List<CardSummary> findContent(Specification<Card> spec, Pageable pageable, CardListView view, int limit);
+
+    /**
+     * This method is used to count the cards matching a filter.
+     * @param spec filter applied to the cards, can be null.
+     * @return the number of matching cards.
+     */
+    long countCards(Specification<Card> spec);
+
+    /**
+     * This method is used to read one keyset page of cards ordered by (createdAt, id) descending.
+     * No count query is run.
+     * @param spec filter applied to the cards, can be null.
+     * @param after position of the last card of the previous page, null for the first page.
+     * @param limit maximum number of cards to return.
+     * @return the cards following the cursor.
+     */
+    List<CardView> findPageAfter(Specification<Card> spec, CardCursor after, int limit);
+
+    /**
+     * This method is used to read the newest cards of every status in one query.
+     * @param creatorId creator of the cards, null for the cards of all creators.
+     * @param limit maximum number of cards to return per status.
+     * @return the cards, grouped by status in CardStatus order, newest first within a status.
+     */
+    List<CardView> findNewestPerStatus(Long creatorId, int limit);
+
+    /**
+     * This method is used to read the cards matching a full-text query, most relevant first.
+     * @param creatorId creator of the cards, null for the cards of all creators.
+     * @param query MySQL boolean mode full-text query over the name and description.
+     * @param view
+     * @param offset number of matching cards to skip.
+     * @param limit maximum number of cards to return.
+     * @return the cards, as CardView for the full view and as CardSummary for the summary view.
+     */
+    List<CardSummary> findByText(Long creatorId, String query, CardListView view, long offset, int limit);
+
+    /**
+     * This method is used to count the cards matching a full-text query.
+     * @param creatorId creator of the cards, null for the cards of all creators.
+     * @param query MySQL boolean mode full-text query over the name and description.
+     * @return the number of matching cards.
+     */
+    long countByText(Long creatorId, String query);
+
+    /**
+     * This method is used to update the given fields of a card with one statement, without reading it first.
+     * @param id
+     * @param creatorId creator the card must belong to, null for any creator.
+     * @param versions versions the card must have, null for any version.
+     * @param patch fields to set, null fields are left unchanged.
+     * @return the number of cards updated, 0 if the card is not found or has another version.
+     */
+    int patch(Long id, Long creatorId, Collection<Long> versions, PatchCardRequest patch);
+}
@@ -0,0 +1,384 @@
+package com.kogi.cards_restful.repository;
+
+import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.models.CardStatus;
+import com.kogi.cards_restful.models.User;
+import com.kogi.cards_restful.payload.request.CardCursor;
+import com.kogi.cards_restful.payload.request.CardListView;
+import com.kogi.cards_restful.payload.request.PatchCardRequest;
+import com.kogi.cards_restful.payload.response.CardSummary;
+import com.kogi.cards_restful.payload.response.CardView;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+    private static final String PATCH_QUERY_SPACE = "cards_patch";
+    private static final String MATCH_TEXT = "MATCH (c.name, c.description) AGAINST (:query IN BOOLEAN MODE)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * This method is used to read one page of cards as projections, without loading managed entities.
+     * The creator email is read through a join in the same query.
+     * @param spec filter applied to the cards, can be null.
+     * @param pageable
+     * @return the page of cards, the count query is skipped when the page size tells the total.
+     */
+    @Override
+    public Page<CardView> findViews(Specification<Card> spec, Pageable pageable) {
+        return findPage(spec, pageable, CardView.class, true);
+    }
+
+    /**
+     * This method is used to read one page of cards as projections without their description.
+     * The description column is left out of the select list.
+     * @param spec filter applied to the cards, can be null.
+     * @param pageable
+     * @return the page of cards, the count query is skipped when the page size tells the total.
+     */
+    @Override
+    public Page<CardSummary> findSummaries(Specification<Card> spec, Pageable pageable) {
+        return findPage(spec, pageable, CardSummary.class, false);
+    }
+
+    /**
+     * This method is used to read the cards of a page without counting the total.
+     * @param spec filter applied to the cards, can be null.
+     * @param pageable
+     * @param view
+     * @param limit maximum number of cards to return, starting at the page offset.
+     * @return the cards, as CardView for the full view and as CardSummary for the summary view.
+     */
+    @Override
+    public List<CardSummary> findContent(Specification<Card> spec, Pageable pageable, CardListView view, int limit) {
+        if (view == CardListView.SUMMARY) {
+            return findList(spec, pageable, CardSummary.class, false, limit);
+        }
+        return Collections.unmodifiableList(findList(spec, pageable, CardView.class, true, limit));
+    }
+
+    /**
+     * This method is used to count the cards matching a filter.
+     * @param spec filter applied to the cards, can be null.
+     * @return the number of matching cards.
+     */
+    @Override
+    public long countCards(Specification<Card> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> root = query.from(Card.class);
+        query.select(cb.count(root))
+                .where(toPredicate(spec, root, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private <T> Page<T> findPage(Specification<Card> spec, Pageable pageable, Class<T> type, boolean withDescription) {
+        List<T> content = findList(spec, pageable, type, withDescription, pageable.isPaged() ? pageable.getPageSize() : 0);
+        return PageableExecutionUtils.getPage(content, pageable, () -> countCards(spec));
+    }
+
+    private <T> List<T> findList(Specification<Card> spec, Pageable pageable, Class<T> type, boolean withDescription, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<Card> root = query.from(Card.class);
+        query.select(select(cb, root, type, withDescription))
+                .where(toPredicate(spec, root, query, cb))
+                .orderBy(toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<T> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    /**
+     * This method is used to read one keyset page of cards ordered by (createdAt, id) descending.
+     * The row comparison (createdAt, id) < (?, ?) is expanded so it can be expressed in JPQL.
+     * The creator email is read through a join in the same query.
+     * @param spec filter applied to the cards, can be null.
+     * @param after position of the last card of the previous page, null for the first page.
+     * @param limit maximum number of cards to return.
+     * @return the cards following the cursor.
+     */
+    @Override
+    public List<CardView> findPageAfter(Specification<Card> spec, CardCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CardView> query = cb.createQuery(CardView.class);
+        Root<Card> root = query.from(Card.class);
+
+        Predicate predicate = toPredicate(spec, root, query, cb);
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> id = root.get("id");
+        if (after != null) {
+            predicate = cb.and(predicate, cb.or(
+                    cb.lessThan(createdAt, after.getCreatedAt()),
+                    cb.and(cb.equal(createdAt, after.getCreatedAt()), cb.lessThan(id, after.getId()))));
+        }
+        query.select(select(cb, root, CardView.class, true))
+                .where(predicate)
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * This method is used to read the newest cards of every status in one query.
+     * Each status is read by its own branch of a UNION ALL, ordered and limited by the (creator_id, card_status,
+     * created_at, id) or (card_status, created_at, id) index, so no branch reads more than limit rows.
+     * The enum ordinals are written in the query, as card_status stores them.
+     * @param creatorId creator of the cards, null for the cards of all creators.
+     * @param limit maximum number of cards to return per status.
+     * @return the cards, grouped by status in CardStatus order, newest first within a status.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CardView> findNewestPerStatus(Long creatorId, int limit) {
+        StringBuilder sql = new StringBuilder();
+        for (CardStatus status : CardStatus.values()) {
+            if (sql.length() > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("(SELECT c.id, c.name, c.description, c.color, c.card_status, c.created_at, u.email, c.version")
+                    .append(" FROM cards c LEFT JOIN users u ON u.id = c.creator_id")
+                    .append(" WHERE c.card_status = ").append(status.ordinal());
+            if (creatorId != null) {
+                sql.append(" AND c.creator_id = :creatorId");
+            }
+            sql.append(" ORDER BY c.created_at DESC, c.id DESC LIMIT ").append(limit).append(")");
+        }
+        // The union has no order of its own, sorting its few rows keeps the branches apart.
+        sql.append(" ORDER BY card_status, created_at DESC, id DESC");
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("name", String.class)
+                .addScalar("description", String.class)
+                .addScalar("color", String.class)
+                .addScalar("card_status", Integer.class)
+                .addScalar("created_at", LocalDateTime.class)
+                .addScalar("email", String.class)
+                .addScalar("version", Long.class);
+        if (creatorId != null) {
+            query.setParameter("creatorId", creatorId);
+        }
+
+        CardStatus[] statuses = CardStatus.values();
+        List<CardView> cards = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            cards.add(new CardView((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    statuses[(Integer) row[4]], (LocalDateTime) row[5], (String) row[6], (Long) row[7]));
+        }
+        return cards;
+    }
+
+    /**
+     * This method is used to read the cards matching a full-text query, most relevant first.
+     * The query is matched against the (name, description) FULLTEXT index; cards of equal relevance are ordered
+     * newest first so pages do not overlap.
+     * @param creatorId creator of the cards, null for the cards of all creators.
+     * @param query MySQL boolean mode full-text query over the name and description.
+     * @param view
+     * @param offset number of matching cards to skip.
+     * @param limit maximum number of cards to return.
+     * @return the cards, as CardView for the full view and as CardSummary for the summary view.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CardSummary> findByText(Long creatorId, String query, CardListView view, long offset, int limit) {
+        boolean withDescription = view != CardListView.SUMMARY;
+        StringBuilder sql = new StringBuilder("SELECT c.id, c.name, ");
+        if (withDescription) {
+            sql.append("c.description, ");
+        }
+        sql.append("c.color, c.card_status, c.created_at, u.email, c.version, ")
+                .append(MATCH_TEXT).append(" AS relevance")
+                .append(" FROM cards c LEFT JOIN users u ON u.id = c.creator_id")
+                .append(" WHERE ").append(MATCH_TEXT);
+        if (creatorId != null) {
+            sql.append(" AND c.creator_id = :creatorId");
+        }
+        sql.append(" ORDER BY relevance DESC, c.created_at DESC, c.id DESC LIMIT :limit OFFSET :offset");
+
+        NativeQuery<Object[]> nativeQuery = entityManager.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("name", String.class);
+        if (withDescription) {
+            nativeQuery.addScalar("description", String.class);
+        }
+        nativeQuery.addScalar("color", String.class)
+                .addScalar("card_status", Integer.class)
+                .addScalar("created_at", LocalDateTime.class)
+                .addScalar("email", String.class)
+                .addScalar("version", Long.class)
+                .setParameter("query", query)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset);
+        if (creatorId != null) {
+            nativeQuery.setParameter("creatorId", creatorId);
+        }
+
+        CardStatus[] statuses = CardStatus.values();
+        List<CardSummary> cards = new ArrayList<>();
+        for (Object[] row : nativeQuery.getResultList()) {
+            int column = 0;
+            Long id = (Long) row[column++];
+            String name = (String) row[column++];
+            String description = withDescription ? (String) row[column++] : null;
+            String color = (String) row[column++];
+            Integer cardStatus = (Integer) row[column++];
+            CardStatus status = cardStatus != null ? statuses[cardStatus] : null;
+            LocalDateTime createdAt = (LocalDateTime) row[column++];
+            String email = (String) row[column++];
+            Long version = (Long) row[column];
+            cards.add(withDescription
+                    ? new CardView(id, name, description, color, status, createdAt, email, version)
+                    : new CardSummary(id, name, color, status, createdAt, email, version));
+        }
+        return cards;
+    }
+
+    /**
+     * This method is used to count the cards matching a full-text query.
+     * @param creatorId creator of the cards, null for the cards of all creators.
+     * @param query MySQL boolean mode full-text query over the name and description.
+     * @return the number of matching cards.
+     */
+    @Override
+    public long countByText(Long creatorId, String query) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM cards c WHERE ").append(MATCH_TEXT);
+        if (creatorId != null) {
+            sql.append(" AND c.creator_id = :creatorId");
+        }
+        Query countQuery = entityManager.createNativeQuery(sql.toString())
+                .setParameter("query", query);
+        if (creatorId != null) {
+            countQuery.setParameter("creatorId", creatorId);
+        }
+        return ((Number) countQuery.getSingleResult()).longValue();
+    }
+
+    /**
+     * This method is used to update the given fields of a card with one statement, without reading it first.
+     * Only the given columns and the version are written. The statement is declared on its own query space so
+     * Hibernate does not empty the whole cards cache region; as it changes neither the id nor the creator, no
+     * cached query result is affected, and the one cached card is evicted before and after the transaction.
+     * @param id
+     * @param creatorId creator the card must belong to, null for any creator.
+     * @param versions versions the card must have, null for any version.
+     * @param patch fields to set, null fields are left unchanged.
+     * @return the number of cards updated, 0 if the card is not found or has another version.
+     */
+    @Override
+    public int patch(Long id, Long creatorId, Collection<Long> versions, PatchCardRequest patch) {
+        StringBuilder sql = new StringBuilder("UPDATE cards SET version = version + 1");
+        if (patch.getName() != null) {
+            sql.append(", name = :name");
+        }
+        if (patch.getDescription() != null) {
+            sql.append(", description = :description");
+        }
+        if (patch.getColor() != null) {
+            sql.append(", color = :color");
+        }
+        if (patch.getStatus() != null) {
+            sql.append(", card_status = :cardStatus");
+        }
+        sql.append(" WHERE id = :id");
+        if (creatorId != null) {
+            sql.append(" AND creator_id = :creatorId");
+        }
+        if (versions != null) {
+            sql.append(" AND version IN (:versions)");
+        }
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql.toString())
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(PATCH_QUERY_SPACE)
+                .setParameter("id", id);
+        if (patch.getName() != null) {
+            query.setParameter("name", patch.getName());
+        }
+        if (patch.getDescription() != null) {
+            query.setParameter("description", patch.getDescription());
+        }
+        if (patch.getColor() != null) {
+            query.setParameter("color", patch.getColor());
+        }
+        if (patch.getStatus() != null) {
+            query.setParameter("cardStatus", CardStatus.valueOf(patch.getStatus()).ordinal());
+        }
+        if (creatorId != null) {
+            query.setParameter("creatorId", creatorId);
+        }
+        if (versions != null) {
+            query.setParameterList("versions", versions);
+        }
+
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(Card.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(Card.class, id);
+                }
+            });
+        }
+        return query.executeUpdate();
+    }
+
+    private static Predicate toPredicate(Specification<Card> spec, Root<Card> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        return predicate != null ? predicate : cb.conjunction();
+    }
+
+    private static <T> CompoundSelection<T> select(CriteriaBuilder cb, Root<Card> root, Class<T> type, boolean withDescription) {
+        Join<Card, User> creator = root.join("creator", JoinType.LEFT);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id"));
+        selections.add(root.get("name"));
+        if (withDescription) {
+            selections.add(root.get("description"));
+        }
+        selections.add(root.get("color"));
+        selections.add(root.get("cardStatus"));
+        selections.add(root.get("createdAt"));
+        selections.add(creator.get("email"));
+        selections.add(root.get("version"));
+        return cb.construct(type, selections.toArray(new Selection<?>[0]));
+    }
+}
@@ -0,0 +1,68 @@
+package com.kogi.cards_restful.repository;
+
+import com.kogi.cards_restful.models.CardStat;
+import com.kogi.cards_restful.models.CardStatDimension;
+import com.kogi.cards_restful.models.CardStatId;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+public interface CardStatRepository extends JpaRepository<CardStat, CardStatId> {
+    List<CardStat> findByCreatorId(Long creatorId);
+
+    @Query("select s.dimension as dimension, s.value as value, sum(s.count) as count from CardStat s group by s.dimension, s.value")
+    List<CardStatTotal> sumByDimensionAndValue();
+
+    /**
+     * Sums the counters of one dimension over every creator, 0 when there is none.
+     */
+    @Query("select coalesce(sum(s.count), 0) from CardStat s where s.dimension = :dimension")
+    long sumCountByDimension(@Param("dimension") CardStatDimension dimension);
+
+    /**
+     * Adds delta to one counter, creating it if needed. The query space keeps Hibernate from evicting the
+     * second level cache, as it would for a native update touching unknown tables.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO card_stats (creator_id, dimension, stat_value, card_count)"
+            + " VALUES (:creatorId, :dimension, :value, :delta)"
+            + " ON DUPLICATE KEY UPDATE card_count = card_count + :delta")
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "card_stats"))
+    int addToCount(@Param("creatorId") Long creatorId, @Param("dimension") String dimension,
+                   @Param("value") String value, @Param("delta") long delta);
+
+    /**
+     * Reads and locks the counters of a creator, and the gaps between them, until the end of the transaction.
+     */
+    @Query(nativeQuery = true, value = "SELECT * FROM card_stats WHERE creator_id = :creatorId FOR UPDATE")
+    List<CardStat> lockByCreatorId(@Param("creatorId") Long creatorId);
+
+    /**
+     * Lists the creators having counters or cards.
+     */
+    @Query(nativeQuery = true, value = "SELECT creator_id FROM card_stats"
+            + " UNION SELECT DISTINCT creator_id FROM cards WHERE creator_id IS NOT NULL")
+    List<Long> findCreatorIds();
+
+    /**
+     * Takes the named lock of the reconcile run without waiting: 1 if taken, 0 if another connection holds it.
+     * The lock belongs to the connection, so it must be released in the same transaction.
+     */
+    @Query(nativeQuery = true, value = "SELECT GET_LOCK('card_stats_reconcile', 0)")
+    Integer tryLockReconcile();
+
+    /**
+     * Releases the named lock of the reconcile run held by this connection.
+     */
+    @Query(nativeQuery = true, value = "SELECT RELEASE_LOCK('card_stats_reconcile')")
+    Integer releaseReconcileLock();
+}
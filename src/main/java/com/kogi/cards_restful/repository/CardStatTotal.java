@@ -0,0 +1,14 @@
+package com.kogi.cards_restful.repository;
+
+import com.kogi.cards_restful.models.CardStatDimension;
+
+/**
+ * This interface is used to read the number of cards of all creators having one status or one color.
+ */
+public interface CardStatTotal {
+    CardStatDimension getDimension();
+
+    String getValue();
+
+    Long getCount();
+}
@@ -2,12 +2,17 @@ package com.kogi.cards_restful.repository;
 
 import com.kogi.cards_restful.models.ERole;
 import com.kogi.cards_restful.models.Role;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
   Optional<Role> findByName(ERole name);
 }
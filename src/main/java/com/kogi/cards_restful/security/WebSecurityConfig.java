@@ -33,13 +33,14 @@ public class WebSecurityConfig {
   }
   /**
    * This method is used to configure the authentication provider.
+   * Sign in always reads the user from the database so a cached password is never checked.
    * @return an authentication provider.
    */
   @Bean
   public DaoAuthenticationProvider authenticationProvider() {
       DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
        
-      authProvider.setUserDetailsService(userDetailsService);
+      authProvider.setUserDetailsService(userDetailsService::loadFreshUserByUsername);
       authProvider.setPasswordEncoder(passwordEncoder());
    
       return authProvider;
@@ -1,6 +1,8 @@
 package com.kogi.cards_restful.security.jwt;
 
+import com.kogi.cards_restful.security.services.TokenVersionService;
 import com.kogi.cards_restful.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,10 +27,17 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private TokenVersionService tokenVersionService;
+
+  @Value("${card_restful.app.jwtStatelessAuth:false}")
+  private boolean statelessAuth;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   /**
    * Check and filter credentials.
+   * In stateless mode the principal is built from the token claims, otherwise it is loaded from the database.
    * @param request
    * @param response
    * @param filterChain
@@ -39,10 +49,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      Claims claims = jwt != null ? jwtUtils.getValidatedClaims(jwt) : null;
+      if (claims != null && isNotRevoked(claims)) {
+        UserDetails userDetails;
+        if (statelessAuth && jwtUtils.hasPrincipalClaims(claims)) {
+          userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+        } else {
+          userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -59,6 +73,29 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  /**
+   * Streamed responses finish on an async dispatch, which must be authenticated again.
+   * @return false so the token is also checked on async dispatches.
+   */
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  /**
+   * This method is used to check that a token has not been revoked since it was issued.
+   * Tokens issued before token versions were introduced carry no version and are not checked.
+   * @param claims
+   * @return true if the token is still usable, false otherwise.
+   */
+  private boolean isNotRevoked(Claims claims) {
+    Integer tokenVersion = claims.get(JwtUtils.TOKEN_VERSION_CLAIM, Integer.class);
+    if (tokenVersion == null) {
+      return true;
+    }
+    return tokenVersionService.isCurrent(claims.get(JwtUtils.USER_ID_CLAIM, Long.class), tokenVersion);
+  }
+
   /**
    * This method is used to parse a jwt token and get the header from bearer
    * @param request
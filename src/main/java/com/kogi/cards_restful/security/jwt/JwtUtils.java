@@ -1,39 +1,117 @@
 package com.kogi.cards_restful.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  public static final String USER_ID_CLAIM = "uid";
+
+  public static final String ROLES_CLAIM = "roles";
+
+  public static final String TOKEN_VERSION_CLAIM = "ver";
+
   @Value("${card_restful.app.jwtSecret}")
   private String jwtSecret;
 
   @Value("${card_restful.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  @Value("${card_restful.app.jwtCacheMaxSize:10000}")
+  private long jwtCacheMaxSize;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  private Key signingKey;
+
+  private JwtParser jwtParser;
+
+  private Cache<String, VerifiedJwt> verifiedTokens;
+
+  /**
+   * This method is used to build the signing key, the parser and the verified token cache once.
+   * Entries are evicted by size and each one expires together with the token it belongs to.
+   */
+  @PostConstruct
+  public void init() {
+    signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    verifiedTokens = Caffeine.newBuilder()
+        .maximumSize(jwtCacheMaxSize)
+        .expireAfter(new Expiry<String, VerifiedJwt>() {
+          @Override
+          public long expireAfterCreate(String key, VerifiedJwt value, long currentTime) {
+            long remainingMillis = value.getExpiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+    if (meterRegistry != null) {
+      CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwtVerifiedTokens");
+    }
+  }
+
   /**
    * This method is used to generate a JWT token.
+   * The token carries the user id, the role names and the token version so it can be trusted without a user lookup.
    * @param authentication object.
    * @return a JWT token.
    */
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    List<String> roles = userPrincipal.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .collect(Collectors.toList());
 
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(USER_ID_CLAIM, userPrincipal.getId())
+        .claim(ROLES_CLAIM, roles)
+        .claim(TOKEN_VERSION_CLAIM, userPrincipal.getTokenVersion())
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
         .signWith(key(), SignatureAlgorithm.HS256)
@@ -41,7 +119,29 @@ public class JwtUtils {
   }
 
   private Key key() {
-    return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    return signingKey;
+  }
+
+  /**
+   * This method is used to get a cache key for a token without keeping the token itself in memory.
+   * @param token
+   * @return the Base64 encoded SHA-256 digest of the token.
+   */
+  private String digest(String token) {
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * This method is used to get the hit and miss counters of the verified token cache.
+   * @return the verified token cache statistics.
+   */
+  public CacheStats getVerifiedTokenCacheStats() {
+    return verifiedTokens.stats();
   }
 
   /**
@@ -50,29 +150,84 @@ public class JwtUtils {
    * @return a username.
    */
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parserBuilder().setSigningKey(key()).build()
-               .parseClaimsJws(token).getBody().getSubject();
+    return jwtParser.parseClaimsJws(token).getBody().getSubject();
   }
 
   /**
-   * This method is used to validate a JWT token.
+   * This method is used to validate a JWT token and get its claims in a single parse.
+   * Tokens that were already verified are served from the cache until they expire. Every caller of a token gets the
+   * same read-only claims, built once when the token is verified, whose writes throw UnsupportedOperationException.
    * @param authToken
-   * @return true if the token is valid, false otherwise.
+   * @return the claims of the token if it is valid, null otherwise.
    */
-  public boolean validateJwtToken(String authToken) {
+  public Claims getValidatedClaims(String authToken) {
+    if (!StringUtils.hasText(authToken)) {
+      logger.error("JWT claims string is empty");
+      return null;
+    }
+    String cacheKey = digest(authToken);
+    VerifiedJwt verified = verifiedTokens.getIfPresent(cacheKey);
+    if (verified != null) {
+      return verified.getClaims();
+    }
     try {
-      Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-      return true;
+      Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+      if (claims.getExpiration() == null) {
+        return new ReadOnlyClaims(claims);
+      }
+      verified = new VerifiedJwt(claims, claims.getExpiration().getTime());
+      verifiedTokens.put(cacheKey, verified);
+      return verified.getClaims();
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+    } catch (SignatureException e) {
+      logger.error("Invalid JWT signature: {}", e.getMessage());
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
     }
 
-    return false;
+    return null;
+  }
+
+  /**
+   * This method is used to check if a token carries everything needed to build the principal from its claims.
+   * @param claims
+   * @return true if the user id and roles are present, false otherwise.
+   */
+  public boolean hasPrincipalClaims(Claims claims) {
+    return claims.get(USER_ID_CLAIM) != null && claims.get(ROLES_CLAIM) != null;
+  }
+
+  /**
+   * This method is used to build the principal from the claims of a verified token without touching the database.
+   * @param claims
+   * @return a UserDetailsImpl object without a password.
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    List<?> roles = claims.get(ROLES_CLAIM, List.class);
+    List<GrantedAuthority> authorities = roles.stream()
+        .map(role -> new SimpleGrantedAuthority(role.toString()))
+        .collect(Collectors.toList());
+    Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+
+    return new UserDetailsImpl(
+        claims.get(USER_ID_CLAIM, Long.class),
+        claims.getSubject(),
+        null,
+        authorities,
+        tokenVersion != null ? tokenVersion : 0);
+  }
+
+  /**
+   * This method is used to validate a JWT token.
+   * @param authToken
+   * @return true if the token is valid, false otherwise.
+   */
+  public boolean validateJwtToken(String authToken) {
+    return getValidatedClaims(authToken) != null;
   }
 }
@@ -0,0 +1,126 @@
+package com.kogi.cards_restful.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class holds the claims of a verified token, shared by every request carrying the token.
+ * Collection values are copied into unmodifiable lists, and every write throws UnsupportedOperationException.
+ */
+final class ReadOnlyClaims extends DefaultClaims {
+  /**
+   * False while DefaultClaims copies the claims in, true once they are all in.
+   */
+  private final boolean sealed;
+
+  ReadOnlyClaims(Map<String, ?> claims) {
+    super(copy(claims));
+    this.sealed = true;
+  }
+
+  private static Map<String, Object> copy(Map<String, ?> claims) {
+    Map<String, Object> copy = new LinkedHashMap<>();
+    for (Map.Entry<String, ?> claim : claims.entrySet()) {
+      Object value = claim.getValue();
+      copy.put(claim.getKey(), value instanceof Collection
+          ? Collections.unmodifiableList(new ArrayList<>((Collection<?>) value))
+          : value);
+    }
+    return copy;
+  }
+
+  private void checkWritable() {
+    if (sealed) {
+      throw new UnsupportedOperationException("Claims of a verified token are read-only");
+    }
+  }
+
+  @Override
+  public Object put(String name, Object value) {
+    checkWritable();
+    return super.put(name, value);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ?> claims) {
+    checkWritable();
+    super.putAll(claims);
+  }
+
+  @Override
+  public Object remove(Object name) {
+    checkWritable();
+    return super.remove(name);
+  }
+
+  @Override
+  public void clear() {
+    checkWritable();
+    super.clear();
+  }
+
+  @Override
+  public Claims setIssuer(String iss) {
+    checkWritable();
+    return super.setIssuer(iss);
+  }
+
+  @Override
+  public Claims setSubject(String sub) {
+    checkWritable();
+    return super.setSubject(sub);
+  }
+
+  @Override
+  public Claims setAudience(String aud) {
+    checkWritable();
+    return super.setAudience(aud);
+  }
+
+  @Override
+  public Claims setExpiration(Date exp) {
+    checkWritable();
+    return super.setExpiration(exp);
+  }
+
+  @Override
+  public Claims setNotBefore(Date nbf) {
+    checkWritable();
+    return super.setNotBefore(nbf);
+  }
+
+  @Override
+  public Claims setIssuedAt(Date iat) {
+    checkWritable();
+    return super.setIssuedAt(iat);
+  }
+
+  @Override
+  public Claims setId(String jti) {
+    checkWritable();
+    return super.setId(jti);
+  }
+
+  @Override
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(super.keySet());
+  }
+
+  @Override
+  public Collection<Object> values() {
+    return Collections.unmodifiableCollection(super.values());
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    return Collections.unmodifiableSet(super.entrySet());
+  }
+}
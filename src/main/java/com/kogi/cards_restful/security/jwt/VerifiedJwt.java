@@ -0,0 +1,26 @@
+package com.kogi.cards_restful.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * This class holds the result of a successful JWT verification so it can be reused until the token expires.
+ * The claims are read-only, as one entry is shared by every request carrying the token.
+ */
+public final class VerifiedJwt {
+  private final Claims claims;
+
+  private final long expiresAtMillis;
+
+  public VerifiedJwt(Claims claims, long expiresAtMillis) {
+    this.claims = new ReadOnlyClaims(claims);
+    this.expiresAtMillis = expiresAtMillis;
+  }
+
+  public Claims getClaims() {
+    return claims;
+  }
+
+  public long getExpiresAtMillis() {
+    return expiresAtMillis;
+  }
+}
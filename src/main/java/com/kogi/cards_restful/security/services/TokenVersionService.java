@@ -0,0 +1,69 @@
+package com.kogi.cards_restful.security.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kogi.cards_restful.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * This class keeps issued tokens revocable. Every token carries the version of its user's tokens and
+ * bumping the version in the database invalidates all tokens issued before it. The current versions are
+ * cached for a short time so the check does not cost a query on every request.
+ * The cache is local to each node: a node other than the one that revoked the tokens keeps accepting them
+ * until its cached version expires, at most card_restful.app.jwtVersionCacheTtlSeconds later.
+ */
+@Service
+public class TokenVersionService {
+  @Autowired
+  UserRepository userRepository;
+
+  @Value("${card_restful.app.jwtVersionCacheTtlSeconds:30}")
+  private long versionCacheTtlSeconds;
+
+  private Cache<Long, Integer> tokenVersions;
+
+  @PostConstruct
+  public void init() {
+    tokenVersions = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfterWrite(Duration.ofSeconds(versionCacheTtlSeconds))
+        .build();
+  }
+
+  /**
+   * This method is used to check that a token was issued with the current version of its user's tokens.
+   * @param userId
+   * @param tokenVersion
+   * @return true if the token has not been revoked, false otherwise.
+   */
+  public boolean isCurrent(Long userId, Integer tokenVersion) {
+    Integer currentVersion = tokenVersions.get(userId,
+        id -> userRepository.findTokenVersionById(id).orElse(null));
+    return currentVersion != null && currentVersion.equals(tokenVersion);
+  }
+
+  /**
+   * This method is used to revoke every token issued to a user so far.
+   * The cached version is dropped once the new one is committed, so a concurrent request cannot load and
+   * cache the old version again in between.
+   * @param userId
+   */
+  @Transactional
+  public void revokeTokens(Long userId) {
+    userRepository.incrementTokenVersion(userId);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        tokenVersions.invalidate(userId);
+      }
+    });
+  }
+}
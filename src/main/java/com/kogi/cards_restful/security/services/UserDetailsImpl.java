@@ -9,7 +9,6 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 public class UserDetailsImpl implements UserDetails {
   private static final long serialVersionUID = 1L;
@@ -22,6 +21,8 @@ public class UserDetailsImpl implements UserDetails {
   private String password;
 
   private Collection<? extends GrantedAuthority> authorities;
+
+  private int tokenVersion;
   /**
    * This constructor is used to create a UserDetailsImpl object.
    * @param id
@@ -31,26 +32,41 @@ public class UserDetailsImpl implements UserDetails {
    */
   public UserDetailsImpl(Long id, String email, String password,
       Collection<? extends GrantedAuthority> authorities) {
+    this(id, email, password, authorities, 0);
+  }
+  /**
+   * This constructor is used to create a UserDetailsImpl object that knows the version of the user's tokens.
+   * @param id
+   * @param email
+   * @param password
+   * @param authorities
+   * @param tokenVersion
+   */
+  public UserDetailsImpl(Long id, String email, String password,
+      Collection<? extends GrantedAuthority> authorities, int tokenVersion) {
     this.id = id;
     this.email = email;
     this.password = password;
     this.authorities = authorities;
+    this.tokenVersion = tokenVersion;
   }
   /**
    * This method is used to build a UserDetailsImpl object from a User object.
+   * The result is an immutable snapshot of the user and its roles, safe to share between requests.
    * @param user
    * @return a UserDetailsImpl object.
    */
   public static UserDetailsImpl build(User user) {
     List<GrantedAuthority> authorities = user.getRoles().stream()
-        .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-        .collect(Collectors.toList());
+        .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getName().name()))
+        .toList();
 
     return new UserDetailsImpl(
         user.getId(),
         user.getEmail(),
         user.getPassword(), 
-        authorities);
+        authorities,
+        user.getTokenVersion());
   }
   /**
    * This method is used to get the authorities of a user.
@@ -69,6 +85,10 @@ public class UserDetailsImpl implements UserDetails {
     return email;
   }
 
+  public int getTokenVersion() {
+    return tokenVersion;
+  }
+
   @Override
   public String getPassword() {
     return password;
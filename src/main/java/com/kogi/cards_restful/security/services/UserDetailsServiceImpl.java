@@ -1,26 +1,89 @@
 package com.kogi.cards_restful.security.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kogi.cards_restful.models.User;
 import com.kogi.cards_restful.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
   @Autowired
   UserRepository userRepository;
 
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+
+  @Value("${card_restful.app.userCacheMaxSize:1000}")
+  private long userCacheMaxSize;
+
+  @Value("${card_restful.app.userCacheTtlSeconds:300}")
+  private long userCacheTtlSeconds;
+
+  private Cache<String, UserDetailsImpl> users;
+
+  @PostConstruct
+  public void init() {
+    users = Caffeine.newBuilder()
+        .maximumSize(userCacheMaxSize)
+        .expireAfterWrite(Duration.ofSeconds(userCacheTtlSeconds))
+        .recordStats()
+        .build();
+    if (meterRegistry != null) {
+      CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+  }
+
+  /**
+   * This method is used to load the user of an authenticated request.
+   * Users are served from an in-process cache of immutable snapshots with their roles already loaded.
+   * @param email
+   * @return a UserDetailsImpl object.
+   * @throws UsernameNotFoundException if no user has the given email.
+   */
   @Override
-  @Transactional
   public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-    User user = userRepository.findByEmail(email)
+    UserDetailsImpl cached = users.getIfPresent(email);
+    if (cached != null) {
+      return cached;
+    }
+    return loadFreshUserByUsername(email);
+  }
+
+  /**
+   * This method is used to load a user straight from the database, bypassing the cache.
+   * Sign in uses it so that password and token version changes are always seen. The result refreshes the cache.
+   * @param email
+   * @return a UserDetailsImpl object.
+   * @throws UsernameNotFoundException if no user has the given email.
+   */
+  public UserDetails loadFreshUserByUsername(String email) throws UsernameNotFoundException {
+    User user = userRepository.findWithRolesByEmail(email)
         .orElseThrow(() -> new UsernameNotFoundException("User Not Found : " + email));
 
-    return UserDetailsImpl.build(user);
+    UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+    users.put(email, userDetails);
+    return userDetails;
+  }
+
+  /**
+   * This method is used to drop a cached user after its account, roles or tokens change.
+   * Sign-out is the only such change so far; a future role or password change must call it too, otherwise the
+   * old snapshot is served until userCacheTtlSeconds.
+   * @param email
+   */
+  public void evictUser(String email) {
+    users.invalidate(email);
   }
 
 }
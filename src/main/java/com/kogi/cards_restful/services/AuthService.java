@@ -2,6 +2,7 @@ package com.kogi.cards_restful.services;
 
 import com.kogi.cards_restful.payload.request.LoginRequest;
 import com.kogi.cards_restful.payload.request.SignupRequest;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import org.springframework.http.ResponseEntity;
 
 public interface AuthService {
@@ -17,4 +18,10 @@ public interface AuthService {
      * @return 200 OK if the user is registered successfully, 400 BAD REQUEST if the email already exists.
      */
     ResponseEntity<?> signUp(SignupRequest signUpRequest);
+    /***
+     * This method is used to sign out a user by revoking every token issued to them.
+     * @param principal
+     * @return 200 OK if the tokens are revoked successfully.
+     */
+    ResponseEntity<?> signOut(UserDetailsImpl principal);
 }
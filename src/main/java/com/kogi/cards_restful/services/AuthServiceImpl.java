@@ -10,7 +10,9 @@ import com.kogi.cards_restful.payload.response.MessageResponse;
 import com.kogi.cards_restful.repository.RoleRepository;
 import com.kogi.cards_restful.repository.UserRepository;
 import com.kogi.cards_restful.security.jwt.JwtUtils;
+import com.kogi.cards_restful.security.services.TokenVersionService;
 import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import com.kogi.cards_restful.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -43,6 +45,12 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     JwtUtils jwtUtils;
 
+    @Autowired
+    TokenVersionService tokenVersionService;
+
+    @Autowired
+    UserDetailsServiceImpl userDetailsService;
+
     /***
      * This method is used to authenticate a user.
      * @param loginRequest
@@ -111,4 +119,16 @@ public class AuthServiceImpl implements AuthService {
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
-}
\ No newline at end of file
+
+    /***
+     * This method is used to sign out a user by revoking every token issued to them.
+     * @param principal
+     * @return 200 OK if the tokens are revoked successfully.
+     */
+    @Override
+    public ResponseEntity<?> signOut(UserDetailsImpl principal) {
+        tokenVersionService.revokeTokens(principal.getId());
+        userDetailsService.evictUser(principal.getEmail());
+        return ResponseEntity.ok(new MessageResponse("Signed out successfully!"));
+    }
+}
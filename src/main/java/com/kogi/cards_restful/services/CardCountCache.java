@@ -0,0 +1,53 @@
+package com.kogi.cards_restful.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * This class keeps the totals of card lists and searches for a short time, keyed by the user scope and
+ * the filters, so clients paging through the same result do not pay for a count on every page.
+ */
+@Service
+public class CardCountCache {
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${card_restful.app.countCacheMaxSize:10000}")
+    private long countCacheMaxSize;
+
+    @Value("${card_restful.app.countCacheTtlSeconds:30}")
+    private long countCacheTtlSeconds;
+
+    private Cache<String, Long> counts;
+
+    @PostConstruct
+    public void init() {
+        counts = Caffeine.newBuilder()
+                .maximumSize(countCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(countCacheTtlSeconds))
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, counts, "cardCounts");
+        }
+    }
+
+    /**
+     * This method is used to get a cached total, counting it on a miss.
+     * @param key user scope and filters the total belongs to.
+     * @param count counts the total on a miss.
+     * @return the total.
+     */
+    public long get(String key, LongSupplier count) {
+        return counts.get(key, k -> count.getAsLong());
+    }
+}
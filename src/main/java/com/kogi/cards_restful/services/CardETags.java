@@ -0,0 +1,124 @@
+package com.kogi.cards_restful.services;
+
+import com.kogi.cards_restful.models.Card;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used to turn card versions into entity tags and to evaluate conditional request headers.
+ */
+public final class CardETags {
+    private CardETags() {
+    }
+
+    /**
+     * This method is used to get the strong entity tag of a card.
+     * @param card
+     * @return the entity tag, quoted as required in the ETag header.
+     */
+    public static String of(Card card) {
+        return of(card.getVersion());
+    }
+
+    /**
+     * This method is used to get the strong entity tag of a card version.
+     * @param version
+     * @return the entity tag, quoted as required in the ETag header.
+     */
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * This method is used to evaluate an If-Match header against the current version of a card.
+     * Weak tags never match because If-Match uses the strong comparison.
+     * @param ifMatch value of the If-Match header, null when the client sent none.
+     * @param version current version of the card.
+     * @return true if the request may proceed, false if it must fail with 412 PRECONDITION FAILED.
+     */
+    public static boolean matches(String ifMatch, Long version) {
+        if (ifMatch == null) {
+            return true;
+        }
+        String current = of(version);
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method is used to read the card versions an If-Match header accepts, so they can be checked by the update itself.
+     * Weak and unparsable tags accept no version, as in matches.
+     * @param ifMatch value of the If-Match header, null when the client sent none.
+     * @return the accepted versions, null if any version is accepted.
+     */
+    public static List<Long> versions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*")) {
+                return null;
+            }
+            if (candidate.length() > 2 && candidate.startsWith("\"") && candidate.endsWith("\"")) {
+                try {
+                    versions.add(Long.valueOf(candidate.substring(1, candidate.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // Not a card version, it cannot match.
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * This method is used to get the weak entity tag of a page of cards.
+     * It is derived from the number of writes made to the cards the user can see and from the request that selects
+     * the page.
+     * @param changeCount
+     * @param request parts of the request that select the page, such as filters and the pageable.
+     * @return the entity tag, quoted as required in the ETag header.
+     */
+    public static String ofPage(long changeCount, Object... request) {
+        StringBuilder value = new StringBuilder()
+                .append(changeCount);
+        for (Object part : request) {
+            value.append('|').append(part);
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(value.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * This method is used to evaluate an If-None-Match header against the current entity tag.
+     * Tags are compared with the weak comparison, as required for If-None-Match.
+     * @param ifNoneMatch value of the If-None-Match header, null when the client sent none.
+     * @param etag current entity tag.
+     * @return true if the response must be sent, false if 304 NOT MODIFIED can be answered.
+     */
+    public static boolean noneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return true;
+        }
+        String current = weak(etag);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || weak(candidate).equals(current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String weak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,99 @@
+package com.kogi.cards_restful.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kogi.cards_restful.payload.response.CardView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * This class is used to write a stream of cards to an export file one row at a time.
+ * Only the current row and the output buffer are held in memory. The target stream is flushed, never closed.
+ */
+final class CardExportWriter {
+    private static final String CSV_HEADER = "id,name,description,color,cardStatus,createdAt,creator,version";
+
+    private CardExportWriter() {
+    }
+
+    /**
+     * This method is used to write cards as newline delimited JSON.
+     * @param cards
+     * @param objectMapper mapper whose configuration, such as the date format, is applied to every card.
+     * @param out
+     * @throws IOException
+     */
+    static void writeNdjson(Stream<CardView> cards, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(CardView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        Iterator<CardView> iterator = cards.iterator();
+        while (iterator.hasNext()) {
+            writer.writeValue(generator, iterator.next());
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    /**
+     * This method is used to write cards as CSV with a header row.
+     * @param cards
+     * @param out
+     * @throws IOException
+     */
+    static void writeCsv(Stream<CardView> cards, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        Iterator<CardView> iterator = cards.iterator();
+        while (iterator.hasNext()) {
+            CardView card = iterator.next();
+            writer.write(String.valueOf(card.getId()));
+            writer.write(',');
+            writeCsvValue(writer, card.getName());
+            writer.write(',');
+            writeCsvValue(writer, card.getDescription());
+            writer.write(',');
+            writeCsvValue(writer, card.getColor());
+            writer.write(',');
+            writeCsvValue(writer, card.getCardStatus() != null ? card.getCardStatus().name() : null);
+            writer.write(',');
+            writeCsvValue(writer, card.getCreatedAt() != null ? card.getCreatedAt().toString() : null);
+            writer.write(',');
+            writeCsvValue(writer, card.getCreator());
+            writer.write(',');
+            writeCsvValue(writer, card.getVersion() != null ? card.getVersion().toString() : null);
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    /**
+     * This method is used to write one CSV field, quoted only when it contains a separator, a quote or a line break.
+     * @param writer
+     * @param value null is written as an empty field.
+     * @throws IOException
+     */
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,109 @@
+package com.kogi.cards_restful.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kogi.cards_restful.repository.CardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * This class keeps the card names of recently active users in memory, as a UserCardNames per user, for
+ * autocompletion. The names of a user are loaded on first access and dropped after every committed write that
+ * adds, renames or deletes one of their cards; the least recently used ones are dropped to stay within the
+ * memory budget. Users with more distinct names than the per user limit are always served by the database.
+ */
+@Service
+public class CardNameIndex {
+    /**
+     * Cached for users over the name limit, so their names are not loaded again on every request.
+     */
+    private static final UserCardNames TOO_MANY_NAMES = UserCardNames.of(List.of());
+
+    @Autowired
+    CardRepository cardRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${card_restful.app.nameIndexMaxBytes:16777216}")
+    private long maxBytes;
+
+    @Value("${card_restful.app.nameIndexMaxNamesPerUser:2000}")
+    private int maxNamesPerUser;
+
+    @Value("${card_restful.app.nameIndexIdleSeconds:600}")
+    private long idleSeconds;
+
+    private Cache<Long, UserCardNames> names;
+
+    @PostConstruct
+    public void init() {
+        names = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, UserCardNames userNames) -> (int) Math.min(userNames.weight(), Integer.MAX_VALUE))
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, names, "cardNameIndex");
+        }
+    }
+
+    /**
+     * This method is used to get the card names of a user, loading them on the first access.
+     * @param userId
+     * @return the names of the user cards, null if the user has too many names.
+     */
+    public UserCardNames get(Long userId) {
+        UserCardNames userNames = names.get(userId, this::load);
+        return userNames != TOO_MANY_NAMES ? userNames : null;
+    }
+
+    /**
+     * This method is used to drop the names of a user once the current transaction commits.
+     * @param userId
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCompletion(() -> names.invalidate(userId));
+    }
+
+    private UserCardNames load(Long userId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        List<String> cardNames = transactionTemplate.execute(status ->
+                cardRepository.findNamesByCreatorId(userId, PageRequest.of(0, maxNamesPerUser + 1)));
+        return cardNames.size() > maxNamesPerUser ? TOO_MANY_NAMES : UserCardNames.of(cardNames);
+    }
+
+    private static void afterCompletion(Runnable invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidation.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package com.kogi.cards_restful.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.payload.response.CardView;
+import com.kogi.cards_restful.repository.CardRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * This class keeps the cards of recently active users in memory, as a UserCardIndex per user, so their
+ * lists and searches are answered without a query. An index is loaded on first access and dropped after
+ * every committed write to the user's cards; the least recently used ones are dropped to stay within the
+ * memory budget. Users with more cards than the per user limit are always served by the database.
+ * It is disabled unless card_restful.app.readModelEnabled is true.
+ */
+@Service
+public class CardReadModel {
+    /**
+     * Cached for users over the card limit, so their cards are not loaded again on every request.
+     */
+    private static final UserCardIndex TOO_MANY_CARDS = UserCardIndex.of(List.of(), 0);
+
+    @Autowired
+    CardRepository cardRepository;
+
+    @Autowired
+    CardStatsService cardStatsService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${card_restful.app.readModelEnabled:false}")
+    private boolean enabled;
+
+    @Value("${card_restful.app.readModelMaxBytes:67108864}")
+    private long maxBytes;
+
+    @Value("${card_restful.app.readModelMaxCardsPerUser:5000}")
+    private int maxCardsPerUser;
+
+    @Value("${card_restful.app.readModelIdleSeconds:600}")
+    private long idleSeconds;
+
+    private Cache<Long, UserCardIndex> indexes;
+
+    @PostConstruct
+    public void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, UserCardIndex index) -> (int) Math.min(index.weight(), Integer.MAX_VALUE))
+                .expireAfterAccess(Duration.ofSeconds(idleSeconds))
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, indexes, "cardReadModel");
+        }
+    }
+
+    /**
+     * This method is used to tell whether lists and searches of members may be served from memory.
+     * @return true if card_restful.app.readModelEnabled is true.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * This method is used to get the cards of a user, loading them on the first access.
+     * A load runs in its own read-only transaction; a write committed while it runs drops the index when it
+     * completes, as Caffeine makes the invalidation wait for the load.
+     * @param userId
+     * @return the index of the user cards, null if the read model is disabled or the user has too many cards.
+     */
+    public UserCardIndex get(Long userId) {
+        if (!enabled) {
+            return null;
+        }
+        UserCardIndex index = indexes.get(userId, this::load);
+        return index != TOO_MANY_CARDS ? index : null;
+    }
+
+    /**
+     * This method is used to drop the index of a user once the current transaction commits.
+     * @param userId
+     */
+    public void invalidate(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        afterCompletion(() -> indexes.invalidate(userId));
+    }
+
+    private UserCardIndex load(Long userId) {
+        Specification<Card> specification = (root, query, cb) -> cb.equal(root.get("creator").get("id"), userId);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate.execute(status -> {
+            // Read first, so the cards are the ones of this count or of a later write that drops the index.
+            long changeCount = cardStatsService.readChangeCount(userId);
+            List<CardView> cards = cardRepository.findPageAfter(specification, null, maxCardsPerUser + 1);
+            return cards.size() > maxCardsPerUser ? TOO_MANY_CARDS : UserCardIndex.of(cards, changeCount);
+        });
+    }
+
+    private static void afterCompletion(Runnable invalidation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidation.run();
+            }
+        });
+    }
+}
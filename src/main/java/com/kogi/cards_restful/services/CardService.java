@@ -1,61 +1,170 @@
 package com.kogi.cards_restful.services;
 
+import com.kogi.cards_restful.payload.request.CardCountMode;
+import com.kogi.cards_restful.payload.request.CardExportFormat;
+import com.kogi.cards_restful.payload.request.CardListView;
 import com.kogi.cards_restful.payload.request.CreateCardRequest;
 import com.kogi.cards_restful.payload.request.PatchCardRequest;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 public interface CardService {
 
     /**
      * This method is used to create a card.
      * @param createCardRequest
-     * @param authorizationHeader
-     * @return 200 OK with the created card if the card is created successfully, 400 BAD REQUEST if the user does not exist.
+     * @param principal
+     * @return 200 OK with the created card if the card is created successfully.
      */
-    ResponseEntity<?> createCard(CreateCardRequest createCardRequest, String authorizationHeader);
+    ResponseEntity<?> createCard(CreateCardRequest createCardRequest, UserDetailsImpl principal);
+    /**
+     * This method is used to create many cards in one transaction.
+     * @param createCardRequests
+     * @param principal
+     * @return 200 OK with the ids of the created cards, in request order.
+     */
+    ResponseEntity<?> createCards(List<CreateCardRequest> createCardRequests, UserDetailsImpl principal);
+    /**
+     * This method is used to import cards from an NDJSON body, one CreateCardRequest per line.
+     * @param body
+     * @param principal
+     * @return 200 OK with the number of imported and rejected lines and the first errors.
+     * @throws IOException if the body cannot be read.
+     */
+    ResponseEntity<?> importCards(InputStream body, UserDetailsImpl principal) throws IOException;
     /**
      * This method is used to list cards.
      * @param pageable
-     * @param jwtToken
-     * @return 200 OK with a list of cards(Can be empty) if the list is successful, 400 BAD REQUEST if the user does not exist.
+     * @param principal
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @return 200 OK with a list of cards(Can be empty) if the list is successful, 304 NOT MODIFIED if no visible card changed since If-None-Match.
      */
-    ResponseEntity<?> list(Pageable pageable, String jwtToken);
+    ResponseEntity<?> list(Pageable pageable, UserDetailsImpl principal, CardListView view, CardCountMode count, String ifNoneMatch);
     /**
      * This method is used to search cards.
      * @param pageable
-     * @param jwtToken
+     * @param principal
      * @param name
      * @param description
      * @param color
      * @param date
      * @param status
-     * @return 200 OK with a list of cards(Can be empty) if the search is successful, 400 BAD REQUEST if the user does not exist.
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @return 200 OK with a list of cards(Can be empty) if the search is successful, 304 NOT MODIFIED if no visible card changed since If-None-Match.
      */
-    ResponseEntity<?> search(Pageable pageable, String jwtToken, String name, String description, String color, LocalDate date, String status);
+    ResponseEntity<?> search(Pageable pageable, UserDetailsImpl principal, String name, String description, String color, LocalDate date, String status, CardListView view, CardCountMode count, String ifNoneMatch);
+    /**
+     * This method is used to search the name and description of cards by word prefixes, most relevant first.
+     * @param pageable
+     * @param principal
+     * @param text
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @return 200 OK with a page of cards(Can be empty), 304 NOT MODIFIED if no visible card changed since If-None-Match, 400 BAD REQUEST if the text has no word.
+     */
+    ResponseEntity<?> searchText(Pageable pageable, UserDetailsImpl principal, String text, CardListView view, CardCountMode count, String ifNoneMatch);
+    /**
+     * This method is used to list cards one keyset page at a time, newest first.
+     * @param cursor
+     * @param size
+     * @param principal
+     * @return 200 OK with a page of cards and the cursor of the next page, 400 BAD REQUEST if the cursor is invalid.
+     */
+    ResponseEntity<?> listAfter(String cursor, int size, UserDetailsImpl principal);
+    /**
+     * This method is used to search cards one keyset page at a time, newest first.
+     * @param cursor
+     * @param size
+     * @param principal
+     * @param name
+     * @param description
+     * @param color
+     * @param date
+     * @param status
+     * @return 200 OK with a page of cards and the cursor of the next page, 400 BAD REQUEST if the cursor is invalid.
+     */
+    ResponseEntity<?> searchAfter(String cursor, int size, UserDetailsImpl principal, String name, String description, String color, LocalDate date, String status);
+    /**
+     * This method is used to suggest the names of the user cards starting with a prefix.
+     * @param prefix
+     * @param size
+     * @param principal
+     * @return 200 OK with the matching names, in alphabetical order.
+     */
+    ResponseEntity<?> suggestNames(String prefix, int size, UserDetailsImpl principal);
+    /**
+     * This method is used to get the newest cards of every status, with the total of each status.
+     * @param size
+     * @param principal
+     * @return 200 OK with one column per status.
+     */
+    ResponseEntity<?> board(int size, UserDetailsImpl principal);
     /**
      * This method is used to get a card.
      * @param id
-     * @param jwtToken
-     * @return 200 OK with card object if the card is found, 404 NOT FOUND if the card does not exist and 400 BAD REQUEST if the user does not exist.
+     * @param principal
+     * @param ifNoneMatch
+     * @return 200 OK with card object if the card is found, 304 NOT MODIFIED if the card still matches If-None-Match, 404 NOT FOUND if the card does not exist.
+     */
+    ResponseEntity<?> getOne(Long id, UserDetailsImpl principal, String ifNoneMatch);
+    /**
+     * This method is used to get many cards by their ids.
+     * @param ids
+     * @param principal
+     * @return 200 OK with the cards found and the ids of the others, 400 BAD REQUEST if no ids or too many ids are given.
      */
-    ResponseEntity<?> getOne(Long id, String jwtToken);
+    ResponseEntity<?> getMany(List<Long> ids, UserDetailsImpl principal);
     /**
      * This method is used to update a card.
      * @param id
      * @param partialUpdateDto
-     * @param jwtToken
-     * @return 200 OK if the card is updated successfully, 404 NOT FOUND if the card does not exist and 400 BAD REQUEST if the user does not exist.
+     * @param principal
+     * @param ifMatch
+     * @param returnRepresentation false when the client sent Prefer: return=minimal.
+     * @return 200 OK with the updated card, or 204 NO CONTENT without representation, if the card is updated successfully, 404 NOT FOUND if the card does not exist, 412 PRECONDITION FAILED if the card version does not match If-Match.
      */
-    ResponseEntity<?> patchCard(Long id, PatchCardRequest partialUpdateDto, String jwtToken);
+    ResponseEntity<?> patchCard(Long id, PatchCardRequest partialUpdateDto, UserDetailsImpl principal, String ifMatch, boolean returnRepresentation);
     /**
      * This method is used to delete a card.
      * @param id
-     * @param jwtToken
-     * @return 200 OK if the card is deleted successfully, 404 NOT FOUND if the card does not exist.
+     * @param principal
+     * @param ifMatch
+     * @return 200 OK if the card is deleted successfully, 404 NOT FOUND if the card does not exist, 412 PRECONDITION FAILED if the card version does not match If-Match.
+     */
+    ResponseEntity<?> deleteCard(Long id, UserDetailsImpl principal, String ifMatch);
+    /**
+     * This method is used to delete many cards with one statement.
+     * @param ids
+     * @param principal
+     * @return 200 OK with the number of cards deleted.
+     */
+    ResponseEntity<?> deleteCards(List<Long> ids, UserDetailsImpl principal);
+    /**
+     * This method is used to move many cards to a status with one statement.
+     * @param ids
+     * @param status
+     * @param principal
+     * @return 200 OK with the number of cards updated.
+     */
+    ResponseEntity<?> updateCardStatuses(List<Long> ids, String status, UserDetailsImpl principal);
+    /**
+     * This method is used to export every card visible to the user, streamed from the database.
+     * @param principal
+     * @param format
+     * @return 200 OK with a body that writes the cards as they are read.
      */
-    ResponseEntity<?> deleteCard(Long id, String jwtToken);
+    ResponseEntity<StreamingResponseBody> export(UserDetailsImpl principal, CardExportFormat format);
 
 }
@@ -1,30 +1,95 @@
 package com.kogi.cards_restful.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.kogi.cards_restful.models.*;
+import com.kogi.cards_restful.payload.request.CardCountMode;
+import com.kogi.cards_restful.payload.request.CardCursor;
+import com.kogi.cards_restful.payload.request.CardExportFormat;
+import com.kogi.cards_restful.payload.request.CardListView;
 import com.kogi.cards_restful.payload.request.CreateCardRequest;
 import com.kogi.cards_restful.payload.request.PatchCardRequest;
-import com.kogi.cards_restful.payload.response.CardResponse;
+import com.kogi.cards_restful.payload.response.BulkCardUpdateResponse;
+import com.kogi.cards_restful.payload.response.BulkCreateCardResponse;
+import com.kogi.cards_restful.payload.response.CardBatchResponse;
+import com.kogi.cards_restful.payload.response.CardBoardColumn;
+import com.kogi.cards_restful.payload.response.CardBoardResponse;
+import com.kogi.cards_restful.payload.response.CardCursorPage;
+import com.kogi.cards_restful.payload.response.CardImportError;
+import com.kogi.cards_restful.payload.response.CardImportResponse;
+import com.kogi.cards_restful.payload.response.CardNamesResponse;
+import com.kogi.cards_restful.payload.response.CardSummary;
+import com.kogi.cards_restful.payload.response.CardView;
+import com.kogi.cards_restful.payload.response.CardViewResponse;
+import com.kogi.cards_restful.payload.response.CountedPage;
 import com.kogi.cards_restful.payload.response.MessageResponse;
+import com.kogi.cards_restful.repository.CardGroupCount;
+import com.kogi.cards_restful.repository.CardPatchState;
 import com.kogi.cards_restful.repository.CardRepository;
 import com.kogi.cards_restful.repository.UserRepository;
-import com.kogi.cards_restful.security.jwt.JwtUtils;
-import jakarta.persistence.criteria.Expression;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static com.kogi.cards_restful.models.ERole.ROLE_ADMIN;
 
 @Service
 public class CardServiceImpl implements CardService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_BOARD_COLUMN_SIZE = 100;
+    private static final int MAX_BATCH_GET_SIZE = 100;
+    private static final int MAX_TEXT_SEARCH_TERMS = 10;
+    private static final int MAX_NAME_SUGGESTIONS = 50;
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    private static final int IMPORT_BATCH_SIZE = 500;
+    private static final int IMPORT_MAX_LINE_LENGTH = 64 * 1024;
+    private static final int IMPORT_MAX_ERRORS = 1000;
+
     @Autowired
     CardRepository cardRepository;
 
@@ -32,103 +97,318 @@ public class CardServiceImpl implements CardService {
     UserRepository userRepository;
 
     @Autowired
-    JwtUtils jwtUtils;
-     /**
-     * This method is used to get a user from a jwt token.
-     * @param jwtToken
-     * @return an optional user object.
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    CardCountCache cardCountCache;
+
+    @Autowired
+    CardStatsService cardStatsService;
+
+    @Autowired
+    CardReadModel cardReadModel;
+
+    @Autowired
+    CardNameIndex cardNameIndex;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * This method is used to get a reference to the authenticated user without loading it.
+     * @param principal
+     * @return a user reference carrying only the id.
      */
-    private Optional<User> getUser(String jwtToken) {
-        String email = jwtUtils.getUserNameFromJwtToken(jwtToken);
-        return userRepository.findByEmail(email);
+    private User getUser(UserDetailsImpl principal) {
+        return userRepository.getReferenceById(principal.getId());
     }
 
     /**
      * This method is used to check if a user is an admin.
-     * @param roles
+     * @param principal
      * @return true if the user is an admin, false otherwise.
      */
-    private boolean isAdmin(Set<Role> roles) {
-        for (Role role : roles) {
-            if (role.getName() == ROLE_ADMIN) {
+    private boolean isAdmin(UserDetailsImpl principal) {
+        for (GrantedAuthority authority : principal.getAuthorities()) {
+            if (ROLE_ADMIN.name().equals(authority.getAuthority())) {
                 return true;
             }
         }
         return false;
     }
-     /**
-     * This method is used to create a card.
-     * @param createCardRequest
-     * @param jwtToken
-     * @return 200 OK with the created card if the card is created successfully, 400 BAD REQUEST if the user does not exist.
+
+    /**
+     * This method is used to answer 200 OK with the entity tag of a card.
+     * @param card
+     * @param body
+     * @return 200 OK with the ETag header set to the card version.
      */
-    @Override
-    public ResponseEntity<?> createCard(CreateCardRequest createCardRequest, String jwtToken) {
-        Optional<User> creator = getUser(jwtToken);
-        if (creator.isEmpty()) {
-            return ResponseEntity
-                    .badRequest()
-                    .body(new MessageResponse("Error: User does not exist"));
+    private ResponseEntity<?> okWithETag(Card card, Object body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (card.getVersion() != null) {
+            response.eTag(CardETags.of(card));
         }
-        Card newCard = new CardBuilder()
-                .withName(createCardRequest.getName())
-                .withDescription(createCardRequest.getDescription())
-                .withColor(createCardRequest.getColor())
-                .withCardStatus(CardStatus.TODO)
-                .withCreator(creator.get())
-                .build();
-        Card createdCard = cardRepository.save(newCard);
-        return ResponseEntity.ok(new CardResponse("Card created successfully!", createdCard));
+        return response.body(body);
     }
-     /**
-     * This method is used to list cards.
+
+    /**
+     * This method is used to read a page of cards in the requested view, with its total obtained as requested.
+     * @param specification
      * @param pageable
-     * @param jwtToken
-     * @return 200 OK with a list of cards(Can be empty) if the list is successful, 400 BAD REQUEST if the user does not exist.
+     * @param view
+     * @param count
+     * @param countKey user scope and filters of the page, used as the key of the cached total.
+     * @return a slice without total if no count is requested, a page with an exact or cached total otherwise.
      */
-    @Override
-    public ResponseEntity<?> list(Pageable pageable, String jwtToken) {
-        Optional<User> creator = getUser(jwtToken);
-        if (creator.isEmpty()) {
-            return ResponseEntity
-                    .badRequest()
-                    .body(new MessageResponse("Error: User does not exist"));
+    private Slice<CardSummary> findPage(Specification<Card> specification, Pageable pageable, CardListView view, CardCountMode count, String countKey) {
+        int pageSize = pageable.isPaged() ? pageable.getPageSize() : 0;
+        switch (count) {
+            case NONE: {
+                // One extra row tells if there is a next page without counting.
+                List<CardSummary> content = cardRepository.findContent(specification, pageable, view, pageSize + 1);
+                boolean hasNext = pageable.isPaged() && content.size() > pageSize;
+                if (hasNext) {
+                    content = content.subList(0, pageSize);
+                }
+                return new SliceImpl<>(content, pageable, hasNext);
+            }
+            case CACHED: {
+                List<CardSummary> content = cardRepository.findContent(specification, pageable, view, pageSize);
+                long total = cardCountCache.get(countKey, () -> cardRepository.countCards(specification));
+                return new CountedPage<>(content, pageable, total, false);
+            }
+            default: {
+                Page<? extends CardSummary> page = view == CardListView.SUMMARY
+                        ? cardRepository.findSummaries(specification, pageable)
+                        : cardRepository.findViews(specification, pageable);
+                return new CountedPage<>(Collections.unmodifiableList(page.getContent()), pageable, page.getTotalElements(), true);
+            }
         }
-        Page<Card> cards;
+    }
 
-        if (isAdmin(creator.get().getRoles())) {
-            cards = cardRepository.findAll(pageable);
-        } else {
-            cards = cardRepository.findByCreator(creator.get(), pageable);
+    /**
+     * This method is used to name the set of cards visible to the user.
+     * @param principal
+     * @return "all" for admins, the user id otherwise.
+     */
+    private String scope(UserDetailsImpl principal) {
+        return isAdmin(principal) ? "all" : String.valueOf(principal.getId());
+    }
+
+    /**
+     * This method is used to answer 304 NOT MODIFIED to a conditional GET.
+     * @param etag
+     * @return 304 NOT MODIFIED with the ETag header set and no body.
+     */
+    private ResponseEntity<?> notModified(String etag) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .build();
+    }
+
+    /**
+     * This method is used to get the entity tag of a page of the cards visible to the user.
+     * Only the change counter of the visible cards is read, by primary key, so a client holding a fresh page is
+     * answered without loading it.
+     * @param principal
+     * @param request parts of the request that select the page.
+     * @return the weak entity tag of the page.
+     */
+    private String pageETag(UserDetailsImpl principal, Object... request) {
+        long changeCount = cardStatsService.readChangeCount(isAdmin(principal) ? null : principal.getId());
+        return pageETag(changeCount, principal, request);
+    }
+
+    /**
+     * This method is used to get the entity tag of a page from the change counter of the cards visible to the user.
+     * @param changeCount
+     * @param principal
+     * @param request parts of the request that select the page.
+     * @return the weak entity tag of the page.
+     */
+    private String pageETag(long changeCount, UserDetailsImpl principal, Object... request) {
+        Object[] parts = new Object[request.length + 1];
+        parts[0] = scope(principal);
+        System.arraycopy(request, 0, parts, 1, request.length);
+        return CardETags.ofPage(changeCount, parts);
+    }
+
+    /**
+     * This method is used to drop the in-memory copies of the cards of a creator once the transaction completes.
+     * @param creatorId
+     * @param namesChanged true if a card was added, renamed or deleted, so the names of the creator changed too.
+     */
+    private void invalidate(Long creatorId, boolean namesChanged) {
+        cardReadModel.invalidate(creatorId);
+        if (namesChanged) {
+            cardNameIndex.invalidate(creatorId);
         }
-        return ResponseEntity.ok(cards);
     }
 
     /**
-     * This method is used to search cards.
+     * This method is used to drop the in-memory copies of the cards of every creator of the locked cards.
+     * @param groups
+     * @param namesChanged true if cards were deleted, so the names of their creators changed too.
+     */
+    private void invalidate(List<CardGroupCount> groups, boolean namesChanged) {
+        for (CardGroupCount group : groups) {
+            invalidate(group.getCreatorId(), namesChanged);
+        }
+    }
+
+    /**
+     * This method is used to run a read in a read-only transaction.
+     * @param read
+     * @return the response of the read.
+     */
+    private ResponseEntity<?> readOnly(Supplier<ResponseEntity<?>> read) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> read.get());
+    }
+
+    /**
+     * This method is used to answer a list or a search from the in-memory read model, without a query.
+     * The page, its total and its entity tag are the ones the database would give.
      * @param pageable
-     * @param jwtToken
+     * @param principal
+     * @param view
+     * @param count
+     * @param ifNoneMatch
      * @param name
      * @param description
      * @param color
      * @param date
      * @param status
-     * @return 200 OK with a list of cards(Can be empty) if the search is successful, 400 BAD REQUEST if the user does not exist.
+     * @param request parts of the request that select the page, as given to pageETag.
+     * @return the response, null if the read model cannot answer: for admins, users it does not hold and sorts other than by createdAt.
      */
-    @Override
-    public ResponseEntity<?> search(Pageable pageable, String jwtToken, String name, String description, String color, LocalDate date, String status) {
-        Optional<User> creator = getUser(jwtToken);
+    private ResponseEntity<?> fromReadModel(Pageable pageable, UserDetailsImpl principal, CardListView view, CardCountMode count, String ifNoneMatch,
+                                            String name, String description, String color, LocalDate date, String status, Object... request) {
+        if (isAdmin(principal)) {
+            return null;
+        }
+        UserCardIndex index = cardReadModel.get(principal.getId());
+        Boolean newestFirst = index != null ? newestFirst(pageable.getSort()) : null;
+        if (newestFirst == null) {
+            return null;
+        }
+        String etag = pageETag(index.changeCount(), principal, request);
+        if (!CardETags.noneMatch(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
 
-        if (creator.isEmpty()) {
+        int[] positions = index.find(name, description, color, date, status != null ? CardStatus.valueOf(status) : null);
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long end = pageable.isPaged() ? Math.min(offset + pageable.getPageSize(), positions.length) : positions.length;
+        List<CardSummary> content = new ArrayList<>();
+        for (long i = offset; i < end; i++) {
+            int position = positions[newestFirst ? (int) i : positions.length - 1 - (int) i];
+            content.add(index.get(position, view != CardListView.SUMMARY));
+        }
+        Slice<CardSummary> page = count == CardCountMode.NONE
+                ? new SliceImpl<>(content, pageable, end < positions.length)
+                : new CountedPage<>(content, pageable, positions.length, true);
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    /**
+     * This method is used to tell whether a sort is one the read model keeps its cards in.
+     * @param sort
+     * @return true for no sort or createdAt descending, false for createdAt ascending, optionally followed by id
+     * in the same direction, null for any other sort.
+     */
+    private static Boolean newestFirst(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty()) {
+            return true;
+        }
+        Sort.Order first = orders.get(0);
+        if (!first.getProperty().equals("createdAt") || orders.size() > 2) {
+            return null;
+        }
+        if (orders.size() == 2 && (!orders.get(1).getProperty().equals("id") || orders.get(1).getDirection() != first.getDirection())) {
+            return null;
+        }
+        return first.isDescending();
+    }
+
+    /**
+     * This method is used to give a page read from the database the order the read model serves it in.
+     * No sort means newest first, and a sort by createdAt alone is broken by id in the same direction, so a page
+     * does not change order when the user cards are loaded in memory or dropped. Only pages the read model could
+     * serve need it, other pages keep the sort of the request.
+     * @param pageable
+     * @return the pageable with the full sort, or the given one if it is unpaged or has another sort.
+     */
+    private static Pageable withTieBreak(Pageable pageable) {
+        if (!pageable.isPaged()) {
+            return pageable;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.isEmpty()) {
+            return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), NEWEST_FIRST);
+        }
+        if (orders.size() == 1 && orders.get(0).getProperty().equals("createdAt")) {
+            Sort sort = Sort.by(orders.get(0), new Sort.Order(orders.get(0).getDirection(), "id"));
+            return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        }
+        return pageable;
+    }
+
+    /**
+     * This method is used to answer a write that lost a race against another one.
+     * @param ifMatch
+     * @return 412 PRECONDITION FAILED for conditional requests, 409 CONFLICT otherwise.
+     */
+    private ResponseEntity<?> concurrentModification(String ifMatch) {
+        return ResponseEntity
+                .status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                .body(new MessageResponse("Error: Card was modified by another request"));
+    }
+
+    /**
+     * This method is used to tell why a conditional write matched no card.
+     * @param id
+     * @param creatorId creator the card must belong to, null for any creator.
+     * @param ifMatch
+     * @return 404 NOT FOUND if the card does not exist for the user, the answer of concurrentModification otherwise.
+     */
+    private ResponseEntity<?> notFoundOrConcurrentModification(Long id, Long creatorId, String ifMatch) {
+        Optional<Long> version = creatorId == null
+                ? cardRepository.findVersionById(id)
+                : cardRepository.findVersionByIdAndCreatorId(id, creatorId);
+        if (version.isEmpty()) {
             return ResponseEntity
-                    .badRequest()
-                    .body(new MessageResponse("Error: User does not exist"));
+                    .notFound()
+                    .build();
         }
-        boolean isCreatorAnAdmin = isAdmin(creator.get().getRoles());
-        Specification<Card> specification = (root, query, cb) -> {
+        return concurrentModification(ifMatch);
+    }
+
+    /**
+     * This method is used to build the search filter, limited to the cards visible to the user.
+     * @param principal
+     * @param name
+     * @param description
+     * @param color
+     * @param date
+     * @param status
+     * @return a specification matching the given filters, null filters are ignored.
+     */
+    private Specification<Card> searchSpecification(UserDetailsImpl principal, String name, String description, String color, LocalDate date, String status) {
+        boolean isCreatorAnAdmin = isAdmin(principal);
+        return (root, query, cb) -> {
             Predicate predicate = cb.conjunction();
             if (!isCreatorAnAdmin) {
-                predicate = cb.and(predicate, cb.equal(root.get("creator"), creator.get()));
+                predicate = cb.and(predicate, cb.equal(root.get("creator").get("id"), principal.getId()));
             }
             if (name != null) {
                 predicate = cb.and(predicate, cb.equal(root.get("name"), name));
@@ -147,42 +427,469 @@ public class CardServiceImpl implements CardService {
             }
 
             if (date != null) {
-                Expression<LocalDate> dateExpression = cb.function(
-                        "DATE", LocalDate.class, root.get("createdAt")
-                );
-                predicate = cb.and(predicate, cb.equal(dateExpression, date));
+                // Compare the bare column against [date, date + 1) so the created_at indexes can be used.
+                Path<LocalDateTime> createdAt = root.get("createdAt");
+                predicate = cb.and(predicate,
+                        cb.greaterThanOrEqualTo(createdAt, date.atStartOfDay()),
+                        cb.lessThan(createdAt, date.plusDays(1).atStartOfDay()));
             }
 
             return predicate;
         };
-        Page<Card> cards = cardRepository.findAll(specification, pageable);
-        return ResponseEntity.ok(cards);
     }
 
     /**
-     * This method is used to get a card.
-     * @param id
-     * @param jwtToken
-     * @return 200 OK with card object if the card is found, 404 NOT FOUND if the card does not exist and 400 BAD REQUEST if the user does not exist.
+     * This method is used to build a new card from a create request, in the TODO status.
+     * @param createCardRequest
+     * @param creator
+     * @return the card, not saved yet.
+     */
+    private static Card newCard(CreateCardRequest createCardRequest, User creator) {
+        return new CardBuilder()
+                .withName(createCardRequest.getName())
+                .withDescription(createCardRequest.getDescription())
+                .withColor(createCardRequest.getColor())
+                .withCardStatus(CardStatus.TODO)
+                .withCreator(creator)
+                .build();
+    }
+
+    /**
+     * This method is used to count new cards of a user and drop the in-memory copies of the user cards.
+     * @param creatorId
+     * @param cards the saved cards.
+     */
+    private void cardsCreated(Long creatorId, List<Card> cards) {
+        cardStatsService.cardsAdded(creatorId, cards);
+        invalidate(creatorId, true);
+    }
+
+     /**
+     * This method is used to create a card.
+     * The card is returned as a CardView carrying the email of the principal, so writing the response does not
+     * load the creator behind the user reference.
+     * @param createCardRequest
+     * @param principal
+     * @return 200 OK with the created card if the card is created successfully.
+     */
+    @Override
+    @Transactional
+    public ResponseEntity<?> createCard(CreateCardRequest createCardRequest, UserDetailsImpl principal) {
+        Card createdCard = cardRepository.save(newCard(createCardRequest, getUser(principal)));
+        cardsCreated(principal.getId(), List.of(createdCard));
+        CardView cardView = new CardView(createdCard.getId(), createdCard.getName(), createdCard.getDescription(), createdCard.getColor(),
+                createdCard.getCardStatus(), createdCard.getCreatedAt(), principal.getEmail(), createdCard.getVersion());
+        return ResponseEntity.ok(new CardViewResponse("Card created successfully!", cardView));
+    }
+    /**
+     * This method is used to create many cards in one transaction.
+     * Card ids come from a pooled sequence so Hibernate can send the inserts as JDBC batches.
+     * @param createCardRequests
+     * @param principal
+     * @return 200 OK with the ids of the created cards, in request order.
+     */
+    @Override
+    @Transactional
+    public ResponseEntity<?> createCards(List<CreateCardRequest> createCardRequests, UserDetailsImpl principal) {
+        User creator = getUser(principal);
+        List<Card> newCards = new ArrayList<>(createCardRequests.size());
+        for (CreateCardRequest createCardRequest : createCardRequests) {
+            newCards.add(newCard(createCardRequest, creator));
+        }
+        List<Long> ids = new ArrayList<>(newCards.size());
+        for (Card createdCard : cardRepository.saveAll(newCards)) {
+            ids.add(createdCard.getId());
+        }
+        cardsCreated(principal.getId(), newCards);
+        return ResponseEntity.ok(new BulkCreateCardResponse("Cards created successfully!", ids));
+    }
+
+    /**
+     * This method is used to import cards from an NDJSON body, one CreateCardRequest per line.
+     * The body is read while cards are inserted, one batch transaction at a time, so a slow database slows the
+     * reading of the upload instead of buffering it. Invalid lines are skipped and reported.
+     * @param body
+     * @param principal
+     * @return 200 OK with the number of imported and rejected lines and the first errors.
+     * @throws IOException if the body cannot be read.
+     */
+    @Override
+    public ResponseEntity<?> importCards(InputStream body, UserDetailsImpl principal) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(CreateCardRequest.class);
+        NdjsonLineReader lines = new NdjsonLineReader(
+                new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), IMPORT_MAX_LINE_LENGTH);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<CreateCardRequest> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        List<CardImportError> errors = new ArrayList<>();
+        long imported = 0;
+        long rejected = 0;
+        long lineNumber = 0;
+
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String error;
+            CreateCardRequest createCardRequest = null;
+            if (lines.isTruncated()) {
+                error = "Line is longer than " + IMPORT_MAX_LINE_LENGTH + " characters";
+            } else {
+                try {
+                    createCardRequest = reader.readValue(line);
+                    error = validate(createCardRequest);
+                } catch (JsonProcessingException e) {
+                    error = "Invalid JSON: " + e.getOriginalMessage();
+                }
+            }
+            if (error != null) {
+                rejected++;
+                if (errors.size() < IMPORT_MAX_ERRORS) {
+                    errors.add(new CardImportError(lineNumber, error));
+                }
+                continue;
+            }
+            batch.add(createCardRequest);
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                imported += saveBatch(transactionTemplate, batch, principal);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += saveBatch(transactionTemplate, batch, principal);
+        }
+        return ResponseEntity.ok(new CardImportResponse("Cards imported", imported, rejected, errors, rejected > errors.size()));
+    }
+
+    /**
+     * This method is used to check an imported card against the CreateCardRequest rules.
+     * @param createCardRequest
+     * @return the violations joined in one message, null if the card is valid.
+     */
+    private String validate(CreateCardRequest createCardRequest) {
+        if (createCardRequest == null) {
+            return "Card is missing";
+        }
+        Set<ConstraintViolation<CreateCardRequest>> violations = validator.validate(createCardRequest);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        StringBuilder message = new StringBuilder();
+        for (ConstraintViolation<CreateCardRequest> violation : violations) {
+            if (message.length() > 0) {
+                message.append("; ");
+            }
+            message.append(violation.getPropertyPath()).append(": ").append(violation.getMessage());
+        }
+        return message.toString();
+    }
+
+    /**
+     * This method is used to insert one batch of imported cards in its own transaction.
+     * The persistence context is cleared afterwards so it does not grow with the import.
+     * @param transactionTemplate
+     * @param batch
+     * @param principal
+     * @return the number of cards inserted.
+     */
+    private int saveBatch(TransactionTemplate transactionTemplate, List<CreateCardRequest> batch, UserDetailsImpl principal) {
+        transactionTemplate.executeWithoutResult(status -> {
+            User creator = getUser(principal);
+            List<Card> newCards = new ArrayList<>(batch.size());
+            for (CreateCardRequest createCardRequest : batch) {
+                newCards.add(newCard(createCardRequest, creator));
+            }
+            cardRepository.saveAll(newCards);
+            cardsCreated(principal.getId(), newCards);
+            cardRepository.flush();
+            entityManager.clear();
+        });
+        return batch.size();
+    }
+     /**
+     * This method is used to list cards.
+     * Cards are read from the in-memory read model when it holds the user cards, otherwise as projections
+     * in a read-only transaction, so a page adds nothing to the persistence context.
+     * @param pageable
+     * @param principal
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @return 200 OK with a list of cards(Can be empty) if the list is successful, 304 NOT MODIFIED if no visible card changed since If-None-Match.
      */
     @Override
-    public ResponseEntity<?> getOne(Long id, String jwtToken) {
-        Optional<User> creator = getUser(jwtToken);
+    public ResponseEntity<?> list(Pageable pageable, UserDetailsImpl principal, CardListView view, CardCountMode count, String ifNoneMatch) {
+        ResponseEntity<?> fromReadModel = fromReadModel(pageable, principal, view, count, ifNoneMatch,
+                null, null, null, null, null, "list", view, count, pageable);
+        if (fromReadModel != null) {
+            return fromReadModel;
+        }
+        Pageable sorted = cardReadModel.isEnabled() && !isAdmin(principal) ? withTieBreak(pageable) : pageable;
+        return readOnly(() -> {
+            String etag = pageETag(principal, "list", view, count, pageable);
+            if (!CardETags.noneMatch(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            Specification<Card> specification = searchSpecification(principal, null, null, null, null, null);
+            String countKey = scope(principal) + "|list";
+            return ResponseEntity.ok().eTag(etag).body(findPage(specification, sorted, view, count, countKey));
+        });
+    }
 
-        if (creator.isEmpty()) {
+    /**
+     * This method is used to search cards.
+     * Cards are read from the in-memory read model when it holds the user cards, otherwise from the database.
+     * @param pageable
+     * @param principal
+     * @param name
+     * @param description
+     * @param color
+     * @param date
+     * @param status
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @return 200 OK with a list of cards(Can be empty) if the search is successful, 304 NOT MODIFIED if no visible card changed since If-None-Match.
+     */
+    @Override
+    public ResponseEntity<?> search(Pageable pageable, UserDetailsImpl principal, String name, String description, String color, LocalDate date, String status, CardListView view, CardCountMode count, String ifNoneMatch) {
+        ResponseEntity<?> fromReadModel = fromReadModel(pageable, principal, view, count, ifNoneMatch,
+                name, description, color, date, status, "search", view, count, pageable, name, description, color, date, status);
+        if (fromReadModel != null) {
+            return fromReadModel;
+        }
+        Pageable sorted = cardReadModel.isEnabled() && !isAdmin(principal) ? withTieBreak(pageable) : pageable;
+        return readOnly(() -> {
+            String etag = pageETag(principal, "search", view, count, pageable, name, description, color, date, status);
+            if (!CardETags.noneMatch(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            Specification<Card> specification = searchSpecification(principal, name, description, color, date, status);
+            String countKey = String.join("|", scope(principal), "search", name, description, color, String.valueOf(date), status);
+            return ResponseEntity.ok().eTag(etag).body(findPage(specification, sorted, view, count, countKey));
+        });
+    }
+
+    /**
+     * This method is used to search the name and description of cards by words, most relevant first.
+     * Every word must match the start of a word of the card, ignoring case, so "pla rev" finds "Plan the review".
+     * Cards are matched through the FULLTEXT index, sort parameters of the page are ignored.
+     * @param pageable
+     * @param principal
+     * @param text
+     * @param view
+     * @param count
+     * @param ifNoneMatch
+     * @return 200 OK with a page of cards(Can be empty), 304 NOT MODIFIED if no visible card changed since If-None-Match, 400 BAD REQUEST if the text has no word.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> searchText(Pageable pageable, UserDetailsImpl principal, String text, CardListView view, CardCountMode count, String ifNoneMatch) {
+        String query = fullTextQuery(text);
+        if (query == null) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: User does not exist"));
+                    .body(new MessageResponse("Error: The search text must contain a word"));
+        }
+        String etag = pageETag(principal, "text", query, view, count, pageable);
+        if (!CardETags.noneMatch(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+
+        Long creatorId = isAdmin(principal) ? null : principal.getId();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int pageSize = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE - 1;
+        Slice<CardSummary> page;
+        switch (count) {
+            case NONE: {
+                // One extra row tells if there is a next page without counting.
+                List<CardSummary> content = cardRepository.findByText(creatorId, query, view, offset, pageSize + 1);
+                boolean hasNext = content.size() > pageSize;
+                if (hasNext) {
+                    content = content.subList(0, pageSize);
+                }
+                page = new SliceImpl<>(content, pageable, hasNext);
+                break;
+            }
+            case CACHED: {
+                List<CardSummary> content = cardRepository.findByText(creatorId, query, view, offset, pageSize);
+                long total = cardCountCache.get(scope(principal) + "|text|" + query, () -> cardRepository.countByText(creatorId, query));
+                page = new CountedPage<>(content, pageable, total, false);
+                break;
+            }
+            default: {
+                List<CardSummary> content = cardRepository.findByText(creatorId, query, view, offset, pageSize);
+                // A short first page tells the total without counting.
+                long total = offset == 0 && content.size() < pageSize
+                        ? content.size()
+                        : cardRepository.countByText(creatorId, query);
+                page = new CountedPage<>(content, pageable, total, true);
+            }
+        }
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    /**
+     * This method is used to turn search text into a MySQL boolean mode query requiring a prefix of every word.
+     * Characters other than letters, digits and underscores separate words, so no boolean operator of the text
+     * reaches MySQL.
+     * @param text
+     * @return the query, null if the text has no word.
+     */
+    private static String fullTextQuery(String text) {
+        if (text == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        int terms = 0;
+        for (String word : text.split("[^\\p{L}\\p{N}_]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (terms++ == MAX_TEXT_SEARCH_TERMS) {
+                break;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('+').append(word).append('*');
+        }
+        return query.length() > 0 ? query.toString() : null;
+    }
+
+    /**
+     * This method is used to list cards one keyset page at a time, newest first.
+     * @param cursor
+     * @param size
+     * @param principal
+     * @return 200 OK with a page of cards and the cursor of the next page, 400 BAD REQUEST if the cursor is invalid.
+     */
+    @Override
+    public ResponseEntity<?> listAfter(String cursor, int size, UserDetailsImpl principal) {
+        return searchAfter(cursor, size, principal, null, null, null, null, null);
+    }
+
+    /**
+     * This method is used to search cards one keyset page at a time, newest first.
+     * @param cursor
+     * @param size
+     * @param principal
+     * @param name
+     * @param description
+     * @param color
+     * @param date
+     * @param status
+     * @return 200 OK with a page of cards and the cursor of the next page, 400 BAD REQUEST if the cursor is invalid.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> searchAfter(String cursor, int size, UserDetailsImpl principal, String name, String description, String color, LocalDate date, String status) {
+        CardCursor after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = CardCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity
+                        .badRequest()
+                        .body(new MessageResponse("Error: Invalid cursor"));
+            }
+        }
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+        Specification<Card> specification = searchSpecification(principal, name, description, color, date, status);
+        List<CardView> cards = cardRepository.findPageAfter(specification, after, limit + 1);
+
+        String nextCursor = null;
+        if (cards.size() > limit) {
+            cards = cards.subList(0, limit);
+            nextCursor = CardCursor.of(cards.get(limit - 1)).encode();
+        }
+        return ResponseEntity.ok(new CardCursorPage(cards, nextCursor));
+    }
+
+    /**
+     * This method is used to suggest the names of the user cards starting with a prefix, for autocompletion.
+     * Names are read from the in-memory name index without a query; users with too many names are served by
+     * the (creator_id, name) index.
+     * @param prefix
+     * @param size
+     * @param principal
+     * @return 200 OK with at most size names, in alphabetical order, compared ignoring case.
+     */
+    @Override
+    public ResponseEntity<?> suggestNames(String prefix, int size, UserDetailsImpl principal) {
+        String namePrefix = prefix != null ? prefix : "";
+        int limit = Math.min(Math.max(size, 1), MAX_NAME_SUGGESTIONS);
+        UserCardNames names = cardNameIndex.get(principal.getId());
+        if (names != null) {
+            return ResponseEntity.ok(new CardNamesResponse(namePrefix, names.startingWith(namePrefix, limit)));
+        }
+        return readOnly(() -> {
+            String escapedPrefix = namePrefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+            List<String> found = cardRepository.findNamesByCreatorIdStartingWith(principal.getId(), escapedPrefix, PageRequest.of(0, limit));
+            return ResponseEntity.ok(new CardNamesResponse(namePrefix, found));
+        });
+    }
+
+    /**
+     * This method is used to get the newest cards of every status, with the total of each status.
+     * The cards of all statuses are read by one query and the totals come from the card stats,
+     * so the board costs two statements whatever the number of cards.
+     * @param size
+     * @param principal
+     * @return 200 OK with one column per status, in CardStatus order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> board(int size, UserDetailsImpl principal) {
+        int limit = Math.min(Math.max(size, 1), MAX_BOARD_COLUMN_SIZE);
+        List<CardView> cards = cardRepository.findNewestPerStatus(isAdmin(principal) ? null : principal.getId(), limit);
+        Map<String, Long> totals = cardStatsService.readStats(principal).getByStatus();
+
+        Map<CardStatus, List<CardView>> cardsByStatus = new EnumMap<>(CardStatus.class);
+        for (CardView card : cards) {
+            cardsByStatus.computeIfAbsent(card.getCardStatus(), s -> new ArrayList<>()).add(card);
+        }
+        List<CardBoardColumn> columns = new ArrayList<>();
+        for (CardStatus status : CardStatus.values()) {
+            columns.add(new CardBoardColumn(status.name(), totals.getOrDefault(status.name(), 0L),
+                    cardsByStatus.getOrDefault(status, Collections.emptyList())));
+        }
+        return ResponseEntity.ok(new CardBoardResponse(columns));
+    }
+
+    /**
+     * This method is used to get a card.
+     * @param id
+     * @param principal
+     * @param ifNoneMatch
+     * @return 200 OK with card object if the card is found, 304 NOT MODIFIED if the card still matches If-None-Match, 404 NOT FOUND if the card does not exist.
+     */
+    @Override
+    public ResponseEntity<?> getOne(Long id, UserDetailsImpl principal, String ifNoneMatch) {
+        boolean isCreatorAnAdmin = isAdmin(principal);
+        if (ifNoneMatch != null) {
+            Optional<Long> version = isCreatorAnAdmin
+                    ? cardRepository.findVersionById(id)
+                    : cardRepository.findVersionByIdAndCreatorId(id, principal.getId());
+            if (version.isEmpty()) {
+                return ResponseEntity
+                        .notFound()
+                        .build();
+            }
+            String etag = CardETags.of(version.get());
+            if (!CardETags.noneMatch(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
         }
-        boolean isCreatorAnAdmin = isAdmin(creator.get().getRoles());
         Optional<Card> card;
         if(isCreatorAnAdmin){
             card = cardRepository.findById(id);
         }else {
-            card = cardRepository.findByIdAndCreator(id,creator.get());
+            card = cardRepository.findByIdAndCreator(id, getUser(principal));
         }
         if(card.isPresent()) {
-            return ResponseEntity.ok(card);
+            return okWithETag(card.get(), card);
         }else {
             return ResponseEntity
                     .notFound()
@@ -191,73 +898,130 @@ public class CardServiceImpl implements CardService {
     }
 
     /**
-     * This method is used to update a card.
-     * @param id
-     * @param partialUpdateDto
-     * @param jwtToken
-     * @return 200 OK if the card is updated successfully, 404 NOT FOUND if the card does not exist and 400 BAD REQUEST if the user does not exist.
+     * This method is used to get many cards by their ids with one query.
+     * Members are limited to their own cards in the query itself, cards they do not own are reported missing.
+     * @param ids
+     * @param principal
+     * @return 200 OK with the cards found, in request order, and the ids of the others, 400 BAD REQUEST if no ids or too many ids are given.
      */
     @Override
-    public ResponseEntity<?> patchCard(Long id, PatchCardRequest partialUpdateDto, String jwtToken) {
-        Optional<User> creator = getUser(jwtToken);
-
-        if (creator.isEmpty()) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getMany(List<Long> ids, UserDetailsImpl principal) {
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id != null) {
+                    requestedIds.add(id);
+                }
+            }
+        }
+        if (requestedIds.isEmpty() || requestedIds.size() > MAX_BATCH_GET_SIZE) {
             return ResponseEntity
                     .badRequest()
-                    .body(new MessageResponse("Error: User does not exist"));
-        }
-        boolean isCreatorAnAdmin = isAdmin(creator.get().getRoles());
-        Optional<Card> card;
-        if(isCreatorAnAdmin){
-            card = cardRepository.findById(id);
-        }else {
-            card = cardRepository.findByIdAndCreator(id,creator.get());
+                    .body(new MessageResponse("Error: Between 1 and " + MAX_BATCH_GET_SIZE + " ids are required"));
         }
+        List<CardView> found = isAdmin(principal)
+                ? cardRepository.findViewsByIdIn(requestedIds)
+                : cardRepository.findViewsByIdInAndCreatorId(requestedIds, principal.getId());
 
-        if(card.isEmpty()) {
-            return ResponseEntity
-                    .notFound()
-                    .build();
+        Map<Long, CardView> cardsById = new HashMap<>();
+        for (CardView card : found) {
+            cardsById.put(card.getId(), card);
         }
-        Card cardToUpdate = card.get();
-        if (partialUpdateDto.getName() != null) {
-            cardToUpdate.setName(partialUpdateDto.getName());
+        List<CardView> cards = new ArrayList<>(cardsById.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            CardView card = cardsById.get(id);
+            if (card != null) {
+                cards.add(card);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return ResponseEntity.ok(new CardBatchResponse(cards, missingIds));
+    }
+
+    /**
+     * This method is used to update a card with one UPDATE of the given columns, without loading the entity.
+     * Ownership and If-Match are checked by the statement itself. A member changing neither status nor color
+     * sends only that statement. Otherwise the owner, status, color and version of the card are read and locked
+     * first by one primary key lookup, to move the card stats of its creator and drop only that creator's
+     * in-memory copies. The card is read back afterwards only when the client wants it.
+     * @param id
+     * @param partialUpdateDto
+     * @param principal
+     * @param ifMatch
+     * @param returnRepresentation false when the client sent Prefer: return=minimal.
+     * @return 200 OK with the updated card, or 204 NO CONTENT without representation, if the card is updated successfully, 404 NOT FOUND if the card does not exist, 412 PRECONDITION FAILED if the card version does not match If-Match.
+     */
+    @Override
+    @Transactional
+    public ResponseEntity<?> patchCard(Long id, PatchCardRequest partialUpdateDto, UserDetailsImpl principal, String ifMatch, boolean returnRepresentation) {
+        Long creatorId = isAdmin(principal) ? null : principal.getId();
+        List<Long> versions = CardETags.versions(ifMatch);
+        if (versions != null && versions.isEmpty()) {
+            return notFoundOrConcurrentModification(id, creatorId, ifMatch);
         }
-        if (partialUpdateDto.getColor() != null) {
-            cardToUpdate.setColor(partialUpdateDto.getColor());
+        Long newVersion = versions != null && versions.size() == 1 ? versions.get(0) + 1 : null;
+
+        CardPatchState oldState = null;
+        if (creatorId == null || partialUpdateDto.getStatus() != null || partialUpdateDto.getColor() != null) {
+            Optional<CardPatchState> state = creatorId == null
+                    ? cardRepository.lockPatchStateById(id)
+                    : cardRepository.lockPatchStateByIdAndCreatorId(id, creatorId);
+            if (state.isEmpty()) {
+                return ResponseEntity
+                        .notFound()
+                        .build();
+            }
+            oldState = state.get();
+            newVersion = oldState.getVersion() + 1;
         }
-        if (partialUpdateDto.getDescription() != null) {
-            cardToUpdate.setDescription(partialUpdateDto.getDescription());
+
+        if (cardRepository.patch(id, creatorId, versions, partialUpdateDto) == 0) {
+            return notFoundOrConcurrentModification(id, creatorId, ifMatch);
         }
-        if (partialUpdateDto.getStatus() != null) {
-            cardToUpdate.setCardStatus(CardStatus.valueOf(partialUpdateDto.getStatus()));
+
+        Long ownerId = oldState != null ? oldState.getCreatorId() : creatorId;
+        invalidate(ownerId, partialUpdateDto.getName() != null);
+        if (oldState == null) {
+            cardStatsService.cardUpdated(ownerId);
+        } else {
+            CardStatus oldStatus = oldState.getCardStatus() != null ? CardStatus.values()[oldState.getCardStatus()] : null;
+            cardStatsService.cardChanged(ownerId, oldStatus, oldState.getColor(),
+                    partialUpdateDto.getStatus() != null ? CardStatus.valueOf(partialUpdateDto.getStatus()) : oldStatus,
+                    partialUpdateDto.getColor() != null ? partialUpdateDto.getColor() : oldState.getColor());
         }
-        Card updatedCard = cardRepository.save(cardToUpdate);
-        return ResponseEntity.ok(new CardResponse("Card updated successfully!", updatedCard));
 
+        if (!returnRepresentation) {
+            ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                    .header(PREFERENCE_APPLIED, "return=minimal");
+            if (newVersion != null) {
+                response.eTag(CardETags.of(newVersion));
+            }
+            return response.build();
+        }
+        CardView updatedCard = cardRepository.findViewsByIdIn(List.of(id)).get(0);
+        return ResponseEntity.ok()
+                .eTag(CardETags.of(updatedCard.getVersion()))
+                .body(new CardViewResponse("Card updated successfully!", updatedCard));
     }
 
     /**
      * This method is used to delete a card.
      * @param id
-     * @param jwtToken
-     * @return 200 OK if the card is deleted successfully, 404 NOT FOUND if the card does not exist.
+     * @param principal
+     * @param ifMatch
+     * @return 200 OK if the card is deleted successfully, 404 NOT FOUND if the card does not exist, 412 PRECONDITION FAILED if the card version does not match If-Match.
      */
     @Override
-    public ResponseEntity<?> deleteCard(Long id, String jwtToken) {
-        Optional<User> creator = getUser(jwtToken);
-
-        if (creator.isEmpty()) {
-            return ResponseEntity
-                    .badRequest()
-                    .body(new MessageResponse("Error: User does not exist"));
-        }
-        boolean isCreatorAnAdmin = isAdmin(creator.get().getRoles());
+    public ResponseEntity<?> deleteCard(Long id, UserDetailsImpl principal, String ifMatch) {
+        boolean isCreatorAnAdmin = isAdmin(principal);
         Optional<Card> card;
         if(isCreatorAnAdmin){
             card = cardRepository.findById(id);
         }else {
-            card = cardRepository.findByIdAndCreator(id,creator.get());
+            card = cardRepository.findByIdAndCreator(id, getUser(principal));
         }
 
         if(card.isEmpty()) {
@@ -266,8 +1030,116 @@ public class CardServiceImpl implements CardService {
                     .build();
         }
 
-        cardRepository.delete(card.get());
+        Card cardToDelete = card.get();
+        if (!CardETags.matches(ifMatch, cardToDelete.getVersion())) {
+            return concurrentModification(ifMatch);
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                cardRepository.delete(cardToDelete);
+                cardRepository.flush();
+                cardStatsService.cardRemoved(cardToDelete.getCreatorId(), cardToDelete);
+                invalidate(cardToDelete.getCreatorId(), true);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            return concurrentModification(ifMatch);
+        }
         return ResponseEntity.ok(new MessageResponse("Card deleted"));
 
     }
+
+    /**
+     * This method is used to delete many cards with one statement.
+     * Members can only delete their own cards, the ownership rule is part of the statement. The cards are locked
+     * and counted first so the card stats move by exactly the deleted rows. Cached cards are evicted by Hibernate.
+     * @param ids
+     * @param principal
+     * @return 200 OK with the number of requested ids and of cards deleted.
+     */
+    @Override
+    @Transactional
+    public ResponseEntity<?> deleteCards(List<Long> ids, UserDetailsImpl principal) {
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        int deleted;
+        if (isAdmin(principal)) {
+            List<CardGroupCount> groups = cardRepository.lockGroupsByIdIn(requestedIds);
+            cardStatsService.cardsRemoved(groups);
+            invalidate(groups, true);
+            deleted = cardRepository.deleteByIdIn(requestedIds);
+        } else {
+            cardStatsService.cardsRemoved(cardRepository.lockGroupsByIdInAndCreatorId(requestedIds, principal.getId()));
+            invalidate(principal.getId(), true);
+            deleted = cardRepository.deleteByIdInAndCreatorId(requestedIds, principal.getId());
+        }
+        return ResponseEntity.ok(new BulkCardUpdateResponse("Cards deleted", requestedIds.size(), deleted));
+    }
+
+    /**
+     * This method is used to move many cards to a status with one statement.
+     * Members can only update their own cards, the ownership rule is part of the statement. Cards already in the
+     * status are left alone, the others get a new version so their entity tags change.
+     * @param ids
+     * @param status
+     * @param principal
+     * @return 200 OK with the number of requested ids and of cards updated.
+     */
+    @Override
+    @Transactional
+    public ResponseEntity<?> updateCardStatuses(List<Long> ids, String status, UserDetailsImpl principal) {
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        CardStatus cardStatus = CardStatus.valueOf(status);
+        int updated;
+        if (isAdmin(principal)) {
+            List<CardGroupCount> groups = cardRepository.lockGroupsByIdIn(requestedIds);
+            cardStatsService.cardsMoved(groups, cardStatus);
+            invalidate(groups, false);
+            updated = cardRepository.updateStatusByIdIn(requestedIds, cardStatus);
+        } else {
+            cardStatsService.cardsMoved(cardRepository.lockGroupsByIdInAndCreatorId(requestedIds, principal.getId()), cardStatus);
+            invalidate(principal.getId(), false);
+            updated = cardRepository.updateStatusByIdInAndCreatorId(requestedIds, principal.getId(), cardStatus);
+        }
+        return ResponseEntity.ok(new BulkCardUpdateResponse("Cards updated", requestedIds.size(), updated));
+    }
+
+    /**
+     * This method is used to export every card visible to the user, streamed from the database.
+     * The body runs after the handler returns, in its own read-only transaction, and writes each card as it is read.
+     * The stream holds the connection for itself: the cards are projections read by one statement, and nothing else
+     * is queried before the stream is closed.
+     * @param principal
+     * @param format
+     * @return 200 OK with a body that writes the cards as they are read.
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> export(UserDetailsImpl principal, CardExportFormat format) {
+        boolean isCreatorAnAdmin = isAdmin(principal);
+        Long creatorId = principal.getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        StreamingResponseBody body = out -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<CardView> cards = isCreatorAnAdmin
+                            ? cardRepository.streamAll()
+                            : cardRepository.streamByCreatorId(creatorId)) {
+                        if (format == CardExportFormat.CSV) {
+                            CardExportWriter.writeCsv(cards, out);
+                        } else {
+                            CardExportWriter.writeNdjson(cards, objectMapper, out);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(format.getFileName()).build().toString())
+                .body(body);
+    }
 }
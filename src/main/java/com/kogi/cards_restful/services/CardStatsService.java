@@ -0,0 +1,73 @@
+package com.kogi.cards_restful.services;
+
+import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.models.CardStatus;
+import com.kogi.cards_restful.payload.response.CardStatsResponse;
+import com.kogi.cards_restful.repository.CardGroupCount;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CardStatsService {
+    /**
+     * This method is used to count new cards, in the transaction that inserts them.
+     * @param creatorId
+     * @param cards
+     */
+    void cardsAdded(Long creatorId, Collection<Card> cards);
+    /**
+     * This method is used to move an updated card between counters, in the transaction that updates it.
+     * @param creatorId
+     * @param oldStatus status of the card before the update.
+     * @param oldColor color of the card before the update.
+     * @param newStatus status of the card after the update.
+     * @param newColor color of the card after the update.
+     */
+    void cardChanged(Long creatorId, CardStatus oldStatus, String oldColor, CardStatus newStatus, String newColor);
+    /**
+     * This method is used to count a write that moved no card between counters, in the transaction that updates the card.
+     * @param creatorId
+     */
+    void cardUpdated(Long creatorId);
+    /**
+     * This method is used to uncount a card, in the transaction that deletes it.
+     * @param creatorId
+     * @param card
+     */
+    void cardRemoved(Long creatorId, Card card);
+    /**
+     * This method is used to uncount cards removed by a bulk delete, in the transaction that deletes them.
+     * @param groups the deleted cards counted per creator, status and color.
+     */
+    void cardsRemoved(List<CardGroupCount> groups);
+    /**
+     * This method is used to move cards to a status after a bulk update, in the transaction that updates them.
+     * @param groups the updated cards counted per creator, status and color, as they were before the update.
+     * @param status the new status of the cards.
+     */
+    void cardsMoved(List<CardGroupCount> groups, CardStatus status);
+    /**
+     * This method is used to get the card counts per status and per color.
+     * @param principal
+     * @return 200 OK with the counts of the user cards, or of all cards for admins.
+     */
+    ResponseEntity<?> getStats(UserDetailsImpl principal);
+    /**
+     * This method is used to read the card counts per status and per color.
+     * @param principal
+     * @return the counts of the user cards, or of all cards for admins.
+     */
+    CardStatsResponse readStats(UserDetailsImpl principal);
+    /**
+     * This method is used to read how many writes were made to the cards of a creator.
+     * @param creatorId null for the cards of all creators.
+     * @return the number of writes, which only grows.
+     */
+    long readChangeCount(Long creatorId);
+    /**
+     * This method is used to recompute every counter from the cards table, repairing any drift.
+     */
+    void reconcile();
+}
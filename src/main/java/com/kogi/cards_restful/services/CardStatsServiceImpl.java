@@ -0,0 +1,377 @@
+package com.kogi.cards_restful.services;
+
+import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.models.CardStat;
+import com.kogi.cards_restful.models.CardStatDimension;
+import com.kogi.cards_restful.models.CardStatId;
+import com.kogi.cards_restful.models.CardStatus;
+import com.kogi.cards_restful.payload.response.CardStatsResponse;
+import com.kogi.cards_restful.repository.CardGroupCount;
+import com.kogi.cards_restful.repository.CardRepository;
+import com.kogi.cards_restful.repository.CardStatRepository;
+import com.kogi.cards_restful.repository.CardStatTotal;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.kogi.cards_restful.models.ERole.ROLE_ADMIN;
+
+/**
+ * Card counts are kept in the card_stats table, one row per creator and status or color, and moved in the
+ * transaction of every card write, so they commit or roll back with it. Global counts are summed from the
+ * rows of all creators when read, which keeps writers of different users off a shared row.
+ * Every write also adds one to the CHANGES row of each creator whose cards it touches. These counters never go
+ * down, so the entity tag of a page of cards is derived from the counter of its creator, read by primary key, or
+ * from the sum of all of them for admins.
+ */
+@Service
+public class CardStatsServiceImpl implements CardStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(CardStatsServiceImpl.class);
+
+    @Autowired
+    CardStatRepository cardStatRepository;
+
+    @Autowired
+    CardRepository cardRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${card_restful.app.statsReconcileEnabled:true}")
+    private boolean reconcileEnabled;
+
+    /**
+     * This method is used to check if a user is an admin.
+     * @param principal
+     * @return true if the user is an admin, false otherwise.
+     */
+    private boolean isAdmin(UserDetailsImpl principal) {
+        for (GrantedAuthority authority : principal.getAuthorities()) {
+            if (ROLE_ADMIN.name().equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This method is used to name the counter of a color, cards without a color are counted under "".
+     * @param color
+     * @return the counter value of the color.
+     */
+    private static String colorValue(String color) {
+        return color != null ? color : "";
+    }
+
+    /**
+     * This method is used to add to the change of one counter.
+     * @param deltas
+     * @param dimension
+     * @param value
+     * @param delta
+     */
+    private static void add(Map<CardStatDimension, Map<String, Long>> deltas, CardStatDimension dimension, String value, long delta) {
+        deltas.computeIfAbsent(dimension, d -> new TreeMap<>()).merge(value, delta, Long::sum);
+    }
+
+    /**
+     * This method is used to add the counters of a card to the changes.
+     * @param deltas
+     * @param status
+     * @param color
+     * @param delta 1 to count the card, -1 to uncount it.
+     */
+    private static void add(Map<CardStatDimension, Map<String, Long>> deltas, CardStatus status, String color, long delta) {
+        if (status != null) {
+            add(deltas, CardStatDimension.STATUS, status.name(), delta);
+        }
+        add(deltas, CardStatDimension.COLOR, colorValue(color), delta);
+    }
+
+    /**
+     * This method is used to count one more write to the cards of a creator.
+     * @param deltas
+     */
+    private static void changed(Map<CardStatDimension, Map<String, Long>> deltas) {
+        add(deltas, CardStatDimension.CHANGES, "", 1);
+    }
+
+    /**
+     * This method is used to write the changes of the counters of a creator, counting one more write to its cards.
+     * Counters are updated in key order so concurrent writers of one creator lock them in the same order.
+     * @param creatorId
+     * @param deltas
+     */
+    private void apply(Long creatorId, Map<CardStatDimension, Map<String, Long>> deltas) {
+        if (creatorId == null) {
+            return;
+        }
+        changed(deltas);
+        for (Map.Entry<CardStatDimension, Map<String, Long>> dimension : deltas.entrySet()) {
+            for (Map.Entry<String, Long> counter : dimension.getValue().entrySet()) {
+                if (counter.getValue() != 0) {
+                    cardStatRepository.addToCount(creatorId, dimension.getKey().name(), counter.getKey(), counter.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * This method is used to write the changes of the counters of many creators, in creator order.
+     * @param deltasByCreator
+     */
+    private void apply(Map<Long, Map<CardStatDimension, Map<String, Long>>> deltasByCreator) {
+        for (Map.Entry<Long, Map<CardStatDimension, Map<String, Long>>> creator : deltasByCreator.entrySet()) {
+            apply(creator.getKey(), creator.getValue());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardsAdded(Long creatorId, Collection<Card> cards) {
+        Map<CardStatDimension, Map<String, Long>> deltas = new EnumMap<>(CardStatDimension.class);
+        for (Card card : cards) {
+            add(deltas, card.getCardStatus(), card.getColor(), 1);
+        }
+        apply(creatorId, deltas);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardChanged(Long creatorId, CardStatus oldStatus, String oldColor, CardStatus newStatus, String newColor) {
+        Map<CardStatDimension, Map<String, Long>> deltas = new EnumMap<>(CardStatDimension.class);
+        add(deltas, oldStatus, oldColor, -1);
+        add(deltas, newStatus, newColor, 1);
+        apply(creatorId, deltas);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardUpdated(Long creatorId) {
+        apply(creatorId, new EnumMap<>(CardStatDimension.class));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardRemoved(Long creatorId, Card card) {
+        Map<CardStatDimension, Map<String, Long>> deltas = new EnumMap<>(CardStatDimension.class);
+        add(deltas, card.getCardStatus(), card.getColor(), -1);
+        apply(creatorId, deltas);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardsRemoved(List<CardGroupCount> groups) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<CardStatDimension, Map<String, Long>>> deltasByCreator = new TreeMap<>();
+        for (CardGroupCount group : groups) {
+            if (group.getCreatorId() == null) {
+                continue;
+            }
+            add(deltas(deltasByCreator, group.getCreatorId()), status(group), group.getColor(), -group.getCardCount());
+        }
+        apply(deltasByCreator);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardsMoved(List<CardGroupCount> groups, CardStatus status) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        Map<Long, Map<CardStatDimension, Map<String, Long>>> deltasByCreator = new TreeMap<>();
+        for (CardGroupCount group : groups) {
+            CardStatus oldStatus = status(group);
+            // Cards without a status are not matched by the update.
+            if (group.getCreatorId() == null || oldStatus == null) {
+                continue;
+            }
+            Map<CardStatDimension, Map<String, Long>> deltas = deltas(deltasByCreator, group.getCreatorId());
+            add(deltas, CardStatDimension.STATUS, oldStatus.name(), -group.getCardCount());
+            add(deltas, CardStatDimension.STATUS, status.name(), group.getCardCount());
+        }
+        apply(deltasByCreator);
+    }
+
+    private static CardStatus status(CardGroupCount group) {
+        return group.getCardStatus() != null ? CardStatus.values()[group.getCardStatus()] : null;
+    }
+
+    private static Map<CardStatDimension, Map<String, Long>> deltas(Map<Long, Map<CardStatDimension, Map<String, Long>>> deltasByCreator, Long creatorId) {
+        return deltasByCreator.computeIfAbsent(creatorId, c -> new EnumMap<>(CardStatDimension.class));
+    }
+
+    /**
+     * This method is used to get the card counts per status and per color.
+     * @param principal
+     * @return 200 OK with the counts of the user cards, or of all cards for admins.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getStats(UserDetailsImpl principal) {
+        return ResponseEntity.ok(readStats(principal));
+    }
+
+    /**
+     * This method is used to read the card counts per status and per color.
+     * Every status is listed, colors are listed only while some card has them.
+     * @param principal
+     * @return the counts of the user cards, or of all cards for admins.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CardStatsResponse readStats(UserDetailsImpl principal) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (CardStatus status : CardStatus.values()) {
+            byStatus.put(status.name(), 0L);
+        }
+        Map<String, Long> byColor = new TreeMap<>();
+        boolean global = isAdmin(principal);
+        if (global) {
+            for (CardStatTotal total : cardStatRepository.sumByDimensionAndValue()) {
+                put(total.getDimension(), total.getValue(), total.getCount(), byStatus, byColor);
+            }
+        } else {
+            for (CardStat stat : cardStatRepository.findByCreatorId(principal.getId())) {
+                put(stat.getDimension(), stat.getValue(), stat.getCount(), byStatus, byColor);
+            }
+        }
+        long total = 0;
+        for (long count : byStatus.values()) {
+            total += count;
+        }
+        return new CardStatsResponse(global, total, byStatus, byColor);
+    }
+
+    /**
+     * This method is used to read how many writes were made to the cards of a creator, by primary key, or to the
+     * cards of all creators, as the sum of the counters of every creator. Each write adds to the counter of at
+     * least one creator, so the sum grows with every write too.
+     * @param creatorId null for the cards of all creators.
+     * @return the number of writes, 0 before the first one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long readChangeCount(Long creatorId) {
+        if (creatorId == null) {
+            return cardStatRepository.sumCountByDimension(CardStatDimension.CHANGES);
+        }
+        CardStatId id = new CardStatId(creatorId, CardStatDimension.CHANGES, "");
+        return cardStatRepository.findById(id).map(CardStat::getCount).orElse(0L);
+    }
+
+    /**
+     * This method is used to put a counter in the response, leaving out empty ones.
+     * @param dimension
+     * @param value
+     * @param count
+     * @param byStatus
+     * @param byColor
+     */
+    private static void put(CardStatDimension dimension, String value, long count, Map<String, Long> byStatus, Map<String, Long> byColor) {
+        if (count <= 0) {
+            return;
+        }
+        if (dimension == CardStatDimension.STATUS) {
+            byStatus.put(value, count);
+        } else if (dimension == CardStatDimension.COLOR) {
+            byColor.put(value, count);
+        }
+    }
+
+    /**
+     * This method is used to recompute every card count from the cards table, one creator per transaction.
+     * The counters of the creator are locked before its cards are counted, so a card write still holding or
+     * waiting for them is either counted or applied after the counts are corrected, never lost.
+     * Only one node runs it at a time: the run holds a MySQL named lock, taken and released on the connection of
+     * an outer transaction, while each creator is corrected in a new transaction on another connection. A node
+     * finding the lock taken skips the run. Nodes with card_restful.app.statsReconcileEnabled=false never run it.
+     */
+    @Override
+    @Scheduled(initialDelayString = "${card_restful.app.statsReconcileDelayMs:3600000}",
+            fixedDelayString = "${card_restful.app.statsReconcileDelayMs:3600000}")
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        TransactionTemplate lockTemplate = new TransactionTemplate(transactionManager);
+        TransactionTemplate creatorTemplate = new TransactionTemplate(transactionManager);
+        creatorTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        lockTemplate.executeWithoutResult(lockStatus -> {
+            Integer locked = cardStatRepository.tryLockReconcile();
+            if (locked == null || locked != 1) {
+                logger.info("Card stats are reconciled by another node, skipping");
+                return;
+            }
+            try {
+                List<Long> creatorIds = cardStatRepository.findCreatorIds();
+                for (Long creatorId : creatorIds) {
+                    creatorTemplate.executeWithoutResult(status -> reconcile(creatorId));
+                }
+                logger.info("Reconciled card stats of {} creators", creatorIds.size());
+            } finally {
+                cardStatRepository.releaseReconcileLock();
+            }
+        });
+    }
+
+    /**
+     * This method is used to correct the card counts of a creator by the difference with counts of its cards.
+     * The CHANGES counter is kept, and counts one more write when a count was wrong, since a write was missed.
+     * @param creatorId
+     */
+    private void reconcile(Long creatorId) {
+        Map<CardStatDimension, Map<String, Long>> deltas = new EnumMap<>(CardStatDimension.class);
+        for (CardStat stat : cardStatRepository.lockByCreatorId(creatorId)) {
+            if (stat.getDimension() != CardStatDimension.CHANGES) {
+                add(deltas, stat.getDimension(), stat.getValue(), -stat.getCount());
+            }
+        }
+        for (Object[] row : cardRepository.countByStatusForCreatorId(creatorId)) {
+            add(deltas, CardStatDimension.STATUS, ((CardStatus) row[0]).name(), (Long) row[1]);
+        }
+        for (Object[] row : cardRepository.countByColorForCreatorId(creatorId)) {
+            add(deltas, CardStatDimension.COLOR, colorValue((String) row[0]), (Long) row[1]);
+        }
+        if (drifted(deltas)) {
+            logger.warn("Corrected drifted card stats of creator {}", creatorId);
+            apply(creatorId, deltas);
+            }
+    }
+
+    /**
+     * This method is used to tell whether any counter has to be corrected.
+     * @param deltas
+     * @return true if a change is not 0.
+     */
+    private static boolean drifted(Map<CardStatDimension, Map<String, Long>> deltas) {
+        for (Map<String, Long> counters : deltas.values()) {
+            for (long delta : counters.values()) {
+                if (delta != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
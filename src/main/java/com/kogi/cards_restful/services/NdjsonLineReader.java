@@ -0,0 +1,64 @@
+package com.kogi.cards_restful.services;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * This class is used to read an NDJSON body one line at a time with a bounded line length.
+ * Characters past the limit are skipped up to the next line break, so one oversized line cannot exhaust memory.
+ */
+final class NdjsonLineReader {
+    private final Reader reader;
+    private final int maxLineLength;
+    private final StringBuilder line;
+    private boolean truncated;
+    private boolean eof;
+
+    NdjsonLineReader(Reader reader, int maxLineLength) {
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+        this.line = new StringBuilder();
+    }
+
+    /**
+     * This method is used to read the next line, without its line break.
+     * @return the line, null at the end of the body.
+     * @throws IOException
+     */
+    String readLine() throws IOException {
+        if (eof) {
+            return null;
+        }
+        line.setLength(0);
+        truncated = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c == '\n') {
+                return trimCarriageReturn();
+            }
+            if (line.length() < maxLineLength) {
+                line.append((char) c);
+            } else {
+                truncated = true;
+            }
+        }
+        eof = true;
+        return line.length() > 0 || truncated ? trimCarriageReturn() : null;
+    }
+
+    /**
+     * This method is used to know if the last line read was longer than the limit.
+     * @return true if the last line was cut.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    private String trimCarriageReturn() {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            line.setLength(length - 1);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,230 @@
+package com.kogi.cards_restful.services;
+
+import com.kogi.cards_restful.models.CardStatus;
+import com.kogi.cards_restful.payload.response.CardSummary;
+import com.kogi.cards_restful.payload.response.CardView;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class holds the cards of one user in columns, newest first, with positions indexed by status, color
+ * and name. It is never changed once built; a write replaces the whole index.
+ * Names and colors are matched ignoring case, as the default MySQL collation compares them.
+ */
+public final class UserCardIndex {
+    private static final int[] NONE = new int[0];
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] descriptions;
+    private final String[] colors;
+    private final CardStatus[] statuses;
+    private final LocalDateTime[] createdAts;
+    private final long[] versions;
+    private final String creator;
+
+    private final int[][] byStatus;
+    private final Map<String, int[]> byColor;
+    private final Map<String, int[]> byName;
+    private final long changeCount;
+    private final long weight;
+
+    private UserCardIndex(List<CardView> cards, long changeCount) {
+        int size = cards.size();
+        ids = new long[size];
+        names = new String[size];
+        descriptions = new String[size];
+        colors = new String[size];
+        statuses = new CardStatus[size];
+        createdAts = new LocalDateTime[size];
+        versions = new long[size];
+        creator = size > 0 ? cards.get(0).getCreator() : null;
+
+        List<List<Integer>> statusPositions = new ArrayList<>();
+        for (int i = 0; i < CardStatus.values().length; i++) {
+            statusPositions.add(new ArrayList<>());
+        }
+        Map<String, List<Integer>> colorPositions = new HashMap<>();
+        Map<String, List<Integer>> namePositions = new HashMap<>();
+        long bytes = 200;
+        for (int i = 0; i < size; i++) {
+            CardView card = cards.get(i);
+            ids[i] = card.getId();
+            names[i] = card.getName();
+            descriptions[i] = card.getDescription();
+            colors[i] = card.getColor();
+            statuses[i] = card.getCardStatus();
+            createdAts[i] = card.getCreatedAt();
+            versions[i] = card.getVersion() != null ? card.getVersion() : 0;
+            if (statuses[i] != null) {
+                statusPositions.get(statuses[i].ordinal()).add(i);
+            }
+            if (colors[i] != null) {
+                colorPositions.computeIfAbsent(key(colors[i]), k -> new ArrayList<>()).add(i);
+            }
+            if (names[i] != null) {
+                namePositions.computeIfAbsent(key(names[i]), k -> new ArrayList<>()).add(i);
+            }
+            // Columns, the LocalDateTime, the strings and three index entries.
+            bytes += 150 + 2L * (length(names[i]) + length(descriptions[i]) + length(colors[i]));
+        }
+
+        byStatus = new int[statusPositions.size()][];
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = toArray(statusPositions.get(i));
+        }
+        byColor = toArrays(colorPositions);
+        byName = toArrays(namePositions);
+        this.changeCount = changeCount;
+        weight = bytes;
+    }
+
+    /**
+     * This method is used to index the cards of one user.
+     * @param cards the cards of the user, ordered by (createdAt, id) descending.
+     * @param changeCount the change counter of the user cards, read in the transaction that read the cards.
+     * @return the index.
+     */
+    public static UserCardIndex of(List<CardView> cards, long changeCount) {
+        return new UserCardIndex(cards, changeCount);
+    }
+
+    /**
+     * This method is used to get the change counter of the user cards as it was when they were read.
+     * @return the change counter.
+     */
+    public long changeCount() {
+        return changeCount;
+    }
+
+    /**
+     * This method is used to find the positions of the cards matching the search filters.
+     * The smallest matching index gives the candidates, the other filters are checked on each of them.
+     * @param name
+     * @param description
+     * @param color
+     * @param date
+     * @param status
+     * @return the positions, newest card first. Null filters are ignored.
+     */
+    public int[] find(String name, String description, String color, LocalDate date, CardStatus status) {
+        int from = 0;
+        int to = ids.length;
+        if (date != null) {
+            from = firstOlderThan(date.plusDays(1).atStartOfDay());
+            to = firstOlderThan(date.atStartOfDay());
+        }
+
+        int[] candidates = null;
+        if (status != null) {
+            candidates = byStatus[status.ordinal()];
+        }
+        if (color != null) {
+            candidates = smallest(candidates, byColor.getOrDefault(key(color), NONE));
+        }
+        if (name != null) {
+            candidates = smallest(candidates, byName.getOrDefault(key(name), NONE));
+        }
+
+        int[] found = new int[candidates != null ? candidates.length : to - from];
+        int count = 0;
+        int end = candidates != null ? candidates.length : to - from;
+        for (int i = 0; i < end; i++) {
+            int position = candidates != null ? candidates[i] : from + i;
+            if (position < from || position >= to) {
+                continue;
+            }
+            if ((status == null || statuses[position] == status)
+                    && (color == null || color.equalsIgnoreCase(colors[position]))
+                    && (name == null || name.equalsIgnoreCase(names[position]))
+                    && (description == null || description.equalsIgnoreCase(descriptions[position]))) {
+                found[count++] = position;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * This method is used to read the card at a position.
+     * @param position
+     * @param withDescription
+     * @return a CardView with its description, a CardSummary without.
+     */
+    public CardSummary get(int position, boolean withDescription) {
+        if (withDescription) {
+            return new CardView(ids[position], names[position], descriptions[position], colors[position],
+                    statuses[position], createdAts[position], creator, versions[position]);
+        }
+        return new CardSummary(ids[position], names[position], colors[position],
+                statuses[position], createdAts[position], creator, versions[position]);
+    }
+
+    /**
+     * @return the number of cards.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return an estimate of the heap used by the index, in bytes.
+     */
+    public long weight() {
+        return weight;
+    }
+
+    /**
+     * This method is used to find the first position of a card created before a time.
+     * Cards are ordered newest first, so the positions before it were created at or after the time.
+     * @param time
+     * @return the position, the number of cards if there is none.
+     */
+    private int firstOlderThan(LocalDateTime time) {
+        int low = 0;
+        int high = createdAts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (createdAts[middle].isBefore(time)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int[] smallest(int[] current, int[] candidates) {
+        return current == null || candidates.length < current.length ? candidates : current;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+        int[] array = new int[positions.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = positions.get(i);
+        }
+        return array;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> positions) {
+        Map<String, int[]> arrays = new HashMap<>(positions.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            arrays.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        return arrays;
+    }
+}
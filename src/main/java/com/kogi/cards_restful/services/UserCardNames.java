@@ -0,0 +1,94 @@
+package com.kogi.cards_restful.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class holds the distinct card names of one user in a sorted array, so the names starting with a prefix
+ * are found by one binary search. Names are compared ignoring case; of names differing only by case, the first
+ * in string order is kept. It is never changed once built; a write replaces the whole list.
+ */
+public final class UserCardNames {
+    private final String[] keys;
+    private final String[] names;
+    private final long weight;
+
+    private UserCardNames(String[] keys, String[] names) {
+        this.keys = keys;
+        this.names = names;
+        long bytes = 100;
+        for (String name : names) {
+            // Two strings and their array slots.
+            bytes += 100 + 4L * name.length();
+        }
+        this.weight = bytes;
+    }
+
+    /**
+     * This method is used to index the card names of one user.
+     * @param cardNames the names, in any order and possibly repeated; null names are left out.
+     * @return the index.
+     */
+    public static UserCardNames of(Collection<String> cardNames) {
+        List<String> sorted = new ArrayList<>(cardNames.size());
+        for (String name : cardNames) {
+            if (name != null) {
+                sorted.add(name);
+            }
+        }
+        Collections.sort(sorted);
+        sorted.sort((first, second) -> key(first).compareTo(key(second)));
+
+        List<String> keys = new ArrayList<>(sorted.size());
+        List<String> names = new ArrayList<>(sorted.size());
+        for (String name : sorted) {
+            String key = key(name);
+            if (keys.isEmpty() || !keys.get(keys.size() - 1).equals(key)) {
+                keys.add(key);
+                names.add(name);
+            }
+        }
+        return new UserCardNames(keys.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    /**
+     * This method is used to find the names starting with a prefix, ignoring case.
+     * @param prefix
+     * @param limit maximum number of names to return.
+     * @return the names, in alphabetical order.
+     */
+    public List<String> startingWith(String prefix, int limit) {
+        String key = key(prefix);
+        int from = Arrays.binarySearch(keys, key);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        List<String> found = new ArrayList<>(Math.min(limit, keys.length - from));
+        for (int i = from; i < keys.length && found.size() < limit && keys[i].startsWith(key); i++) {
+            found.add(names[i]);
+        }
+        return found;
+    }
+
+    /**
+     * @return the number of distinct names.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return an estimate of the heap used by the index, in bytes.
+     */
+    public long weight() {
+        return weight;
+    }
+
+    private static String key(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,36 @@
+-- Schema created by hibernate ddl-auto=update in the builds before Flyway, without the rows inserted by hand.
+-- Those databases are baselined at this version and skip this script; V2 upgrades both kinds alike.
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    email    VARCHAR(50)  NOT NULL,
+    password VARCHAR(120) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE roles (
+    id   INT         NOT NULL AUTO_INCREMENT,
+    name VARCHAR(20),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id INT    NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cards (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(50)  NOT NULL,
+    description VARCHAR(255),
+    color       VARCHAR(255),
+    card_status TINYINT,
+    created_at  DATETIME(6)  NOT NULL,
+    creator_id  BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_cards_creator FOREIGN KEY (creator_id) REFERENCES users (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,69 @@
+-- Brings a database at V1, created here or baselined from an older build, to the schema of this version.
+-- Builds between the two also ran ddl-auto=update with some of these columns, tables and indexes, so every
+-- step checks information_schema first and is skipped when its object already exists.
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'users' AND column_name = 'token_version') = 0,
+              'ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND column_name = 'version') = 0,
+              'ALTER TABLE cards ADD COLUMN version BIGINT NOT NULL DEFAULT 0', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- Backs the pooled card id generator (allocation size 50). The pooled optimizer hands out the 49 ids below
+-- the value it reads, so the value must stay at least 50 above the largest id given by auto increment.
+CREATE TABLE IF NOT EXISTS card_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO card_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM card_seq);
+
+UPDATE card_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id) + 50, 1) FROM cards));
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_creator_created') = 0,
+              'CREATE INDEX idx_cards_creator_created ON cards (creator_id, created_at, id)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_creator_status') = 0,
+              'CREATE INDEX idx_cards_creator_status ON cards (creator_id, card_status)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_creator_color') = 0,
+              'CREATE INDEX idx_cards_creator_color ON cards (creator_id, color)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_creator_name') = 0,
+              'CREATE INDEX idx_cards_creator_name ON cards (creator_id, name)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_created') = 0,
+              'CREATE INDEX idx_cards_created ON cards (created_at, id)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- Roles used to be inserted by hand.
+INSERT INTO roles (name)
+SELECT 'ROLE_MEMBER' FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_MEMBER');
+INSERT INTO roles (name)
+SELECT 'ROLE_ADMIN' FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_ADMIN');
@@ -0,0 +1,23 @@
+-- Card counts per creator, by status and by color, kept up to date by every card write.
+-- Cards without a color are counted under an empty stat_value.
+
+CREATE TABLE card_stats (
+    creator_id BIGINT       NOT NULL,
+    dimension  VARCHAR(10)  NOT NULL,
+    stat_value VARCHAR(255) NOT NULL,
+    card_count BIGINT       NOT NULL,
+    PRIMARY KEY (creator_id, dimension, stat_value)
+) ENGINE = InnoDB;
+
+-- card_status holds the CardStatus ordinal.
+INSERT INTO card_stats (creator_id, dimension, stat_value, card_count)
+SELECT creator_id, 'STATUS', ELT(card_status + 1, 'TODO', 'IN_PROGRESS', 'DONE'), COUNT(*)
+FROM cards
+WHERE creator_id IS NOT NULL AND card_status IS NOT NULL
+GROUP BY creator_id, card_status;
+
+INSERT INTO card_stats (creator_id, dimension, stat_value, card_count)
+SELECT creator_id, 'COLOR', COALESCE(color, ''), COUNT(*)
+FROM cards
+WHERE creator_id IS NOT NULL
+GROUP BY creator_id, COALESCE(color, '');
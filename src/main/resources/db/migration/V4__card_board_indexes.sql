@@ -0,0 +1,24 @@
+-- Newest cards per status for the board, read from the index in (created_at, id) order.
+-- The (creator_id, card_status) index is a prefix of the new one and is dropped.
+-- Each step checks information_schema first, so a database whose indexes were made by hand still migrates.
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_creator_status_created') = 0,
+              'CREATE INDEX idx_cards_creator_status_created ON cards (creator_id, card_status, created_at, id)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_status_created') = 0,
+              'CREATE INDEX idx_cards_status_created ON cards (card_status, created_at, id)', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'idx_cards_creator_status') > 0,
+              'DROP INDEX idx_cards_creator_status ON cards', 'DO 0');
+PREPARE statement FROM @ddl;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
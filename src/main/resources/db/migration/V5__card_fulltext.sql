@@ -0,0 +1,4 @@
+-- Word and prefix search over card names and descriptions, matched in boolean mode.
+-- Words shorter than innodb_ft_min_token_size (3 by default) are only found through a prefix term.
+
+ALTER TABLE cards ADD FULLTEXT INDEX ftx_cards_name_description (name, description);
@@ -7,6 +7,8 @@ import com.kogi.cards_restful.payload.request.SignupRequest;
 import com.kogi.cards_restful.repository.RoleRepository;
 import com.kogi.cards_restful.repository.UserRepository;
 import com.kogi.cards_restful.security.jwt.JwtUtils;
+import com.kogi.cards_restful.security.services.TokenVersionService;
+import com.kogi.cards_restful.security.services.UserDetailsServiceImpl;
 import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import com.kogi.cards_restful.services.AuthServiceImpl;
 import org.junit.Test;
@@ -50,6 +52,12 @@ public class AuthServiceTest {
     @Mock
     private PasswordEncoder encoder;
 
+    @Mock
+    private TokenVersionService tokenVersionService;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
     @Test
     public void testSignIn() {
         String email = "user@example.com";
@@ -104,6 +112,7 @@ public class AuthServiceTest {
 
         ResponseEntity<?> response = authService.signUp(signUpRequest);
 
+        Mockito.verifyNoInteractions(userDetailsService);
         Assertions.assertEquals(ResponseEntity.ok().build().getStatusCode(), response.getStatusCode());
     }
 
@@ -138,4 +147,15 @@ public class AuthServiceTest {
 
         Assertions.assertEquals(ResponseEntity.badRequest().build().getStatusCode(), response.getStatusCode());
     }
+
+    @Test
+    public void testSignOutRevokesTokens() {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@example.com", null, Collections.emptyList());
+
+        ResponseEntity<?> response = authService.signOut(principal);
+
+        Mockito.verify(tokenVersionService, Mockito.times(1)).revokeTokens(1L);
+        Mockito.verify(userDetailsService, Mockito.times(1)).evictUser("user@example.com");
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
 }
@@ -1,11 +1,17 @@
 package com.kogi.cards_restful;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kogi.cards_restful.models.ERole;
 import com.kogi.cards_restful.payload.request.CreateCardRequest;
 import com.kogi.cards_restful.payload.request.LoginRequest;
 import com.kogi.cards_restful.payload.request.PatchCardRequest;
+import com.kogi.cards_restful.payload.request.SignupRequest;
 import com.kogi.cards_restful.payload.response.JwtResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,10 +21,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.HashSet;
+import java.util.Set;
+
 
 @RunWith(SpringRunner.class)
 @AutoConfigureMockMvc
@@ -28,6 +38,9 @@ public class CardControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
 
     @Test
     public void testCreateCard() throws Exception {
@@ -66,6 +79,64 @@ public class CardControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
+    @Test
+    public void testListCardsStatementCountDoesNotGrowWithPageSize() throws Exception {
+        String adminToken = signIn(ERole.ROLE_ADMIN);
+        CreateCardRequest request = new CreateCardRequest();
+        request.setName("Statement Count Card");
+        request.setColor("#000000");
+        // More creators than the small page holds, so a lookup per creator would show in the count.
+        String suffix = Long.toString(System.nanoTime());
+        for (int i = 0; i < 6; i++) {
+            String email = "creator" + i + "." + suffix + "@gmail.com";
+            SignupRequest signupRequest = new SignupRequest();
+            signupRequest.setEmail(email);
+            signupRequest.setPassword("123456789");
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/signup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(signupRequest)))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+            mockMvc.perform(MockMvcRequestBuilders.post("/api/card/create")
+                            .header("Authorization", "Bearer " + signIn(email))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(request)))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+        listCards(adminToken, 5);
+
+        MvcResult smallPage = listCards(adminToken, 5);
+        long smallPageStatements = statistics().getPrepareStatementCount();
+        MvcResult largePage = listCards(adminToken, 50);
+        long largePageStatements = statistics().getPrepareStatementCount();
+
+        // The change counter of all cards, then the page with the creators joined in.
+        Assert.assertEquals(2, smallPageStatements);
+        Assert.assertEquals(2, largePageStatements);
+        JsonNode content = new ObjectMapper().readTree(smallPage.getResponse().getContentAsString()).get("content");
+        Set<String> creators = new HashSet<>();
+        for (JsonNode card : content) {
+            creators.add(card.get("creator").asText());
+        }
+        Assert.assertEquals(5, creators.size());
+        Assert.assertTrue(new ObjectMapper().readTree(largePage.getResponse().getContentAsString()).get("content").size() >= 6);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private MvcResult listCards(String jwtToken, int size) throws Exception {
+        statistics().clear();
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/card/list")
+                        .header("Authorization", "Bearer " + jwtToken)
+                        .param("page", "0")
+                        .param("size", Integer.toString(size))
+                        .param("count", "NONE")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn();
+    }
+
     @Test
     public void testListCardsUnauthorized() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/cards")
@@ -199,12 +270,16 @@ public class CardControllerIntegrationTest {
 
 
     public String signIn(ERole roleAdmin) throws Exception {
-        LoginRequest request = new LoginRequest();
         if(roleAdmin == ERole.ROLE_ADMIN) {
-            request.setEmail("admin@gmail.com");
+            return signIn("admin@gmail.com");
         }else{
-            request.setEmail("member@gmail.com");
+            return signIn("member@gmail.com");
         }
+    }
+
+    public String signIn(String email) throws Exception {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(email);
         request.setPassword("123456789");
 
         ResultActions resultActions = mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/signin")
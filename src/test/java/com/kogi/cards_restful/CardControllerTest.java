@@ -1,7 +1,10 @@
 package com.kogi.cards_restful;
 
 import com.kogi.cards_restful.controllers.CardController;
+import com.kogi.cards_restful.payload.request.CardCountMode;
+import com.kogi.cards_restful.payload.request.CardListView;
 import com.kogi.cards_restful.payload.request.CreateCardRequest;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
 import com.kogi.cards_restful.services.CardService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,6 +18,7 @@ import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 
 import java.time.LocalDate;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,102 +34,108 @@ public class CardControllerTest {
     private CardService cardService;
 
     @Test
-    public void testCreateCard_ValidTokenAndRequest() {
-        String validToken = "valid-token";
+    public void testCreateCard_AuthenticatedValidRequest() {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@example.com", "password", Collections.emptyList());
         CreateCardRequest request = new CreateCardRequest(/* ... */);
         BindingResult bindingResult = new BeanPropertyBindingResult(request, "createCardRequest");
-        when(cardService.createCard(any(CreateCardRequest.class), eq(validToken)))
+        when(cardService.createCard(any(CreateCardRequest.class), eq(principal)))
                 .thenReturn(ResponseEntity.ok().build());
-        ResponseEntity<?> response = cardController.createCard("Bearer " + validToken, request, bindingResult);
-        verify(cardService, times(1)).createCard(any(CreateCardRequest.class), eq(validToken));
+        ResponseEntity<?> response = cardController.createCard(principal, request, bindingResult);
+        verify(cardService, times(1)).createCard(any(CreateCardRequest.class), eq(principal));
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    public void testCreateCard_InvalidToken() {
+    public void testCreateCard_Unauthenticated() {
         CreateCardRequest request = new CreateCardRequest(/* ... */);
         BindingResult bindingResult = new BeanPropertyBindingResult(request, "createCardRequest");
-        ResponseEntity<?> response = cardController.createCard("InvalidToken", request, bindingResult);
+        ResponseEntity<?> response = cardController.createCard(null, request, bindingResult);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
     public void testCreateCard_ValidationErrors() {
-        String validToken = "valid-token";
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@example.com", "password", Collections.emptyList());
         CreateCardRequest request = new CreateCardRequest(/* ... */);
         BindingResult bindingResult = new BeanPropertyBindingResult(request, "createCardRequest");
         bindingResult.reject("field.error", "Field error message");
-        ResponseEntity<?> response = cardController.createCard("Bearer " + validToken, request, bindingResult);
+        ResponseEntity<?> response = cardController.createCard(principal, request, bindingResult);
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
-    public void testListCards_ValidToken() {
-        String validToken = "valid-token";
+    public void testListCards_Authenticated() {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@example.com", "password", Collections.emptyList());
         Pageable pageable = Pageable.unpaged();
-        when(cardService.list(any(Pageable.class), eq(validToken)))
+        when(cardService.list(any(Pageable.class), eq(principal), eq(CardListView.FULL), eq(CardCountMode.EXACT), isNull()))
                 .thenReturn(ResponseEntity.ok().build());
-        ResponseEntity<?> response = cardController.listCards("Bearer " + validToken, pageable);
-        verify(cardService, times(1)).list(any(Pageable.class), eq(validToken));
+        ResponseEntity<?> response = cardController.listCards(principal, CardListView.FULL, CardCountMode.EXACT, null, pageable);
+        verify(cardService, times(1)).list(any(Pageable.class), eq(principal), eq(CardListView.FULL), eq(CardCountMode.EXACT), isNull());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    public void testListCards_InvalidToken() {
+    public void testListCards_Unauthenticated() {
         Pageable pageable = Pageable.unpaged();
-        ResponseEntity<?> response = cardController.listCards("InvalidToken", pageable);
+        ResponseEntity<?> response = cardController.listCards(null, CardListView.FULL, CardCountMode.EXACT, null, pageable);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 
     @Test
-    public void testSearchCards_ValidToken() {
-        String validToken = "valid-token";
+    public void testSearchCards_Authenticated() {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@example.com", "password", Collections.emptyList());
         Pageable pageable = Pageable.unpaged();
         String name = "CardName";
         String description = "CardDescription";
         String color = "546464";
         LocalDate date = LocalDate.now();
         String status = "InProgress";
-        when(cardService.search(any(Pageable.class), eq(validToken), eq(name), eq(description), eq(color), eq(date), eq(status)))
+        when(cardService.search(any(Pageable.class), eq(principal), eq(name), eq(description), eq(color), eq(date), eq(status), eq(CardListView.FULL), eq(CardCountMode.EXACT), isNull()))
                 .thenReturn(ResponseEntity.ok().build());
 
         ResponseEntity<?> response = cardController.searchCards(
-                "Bearer " + validToken,
+                principal,
                 name,
                 description,
                 color,
                 date,
                 status,
+                CardListView.FULL,
+                CardCountMode.EXACT,
+                null,
                 pageable
         );
 
         verify(cardService, times(1)).search(
                 any(Pageable.class),
-                eq(validToken),
+                eq(principal),
                 eq(name),
                 eq(description),
                 eq(color),
                 eq(date),
-                eq(status)
+                eq(status),
+                eq(CardListView.FULL),
+                eq(CardCountMode.EXACT),
+                isNull()
         );
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    public void testGetCard_ValidToken() {
-        String validToken = "valid-token";
+    public void testGetCard_Authenticated() {
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "user@example.com", "password", Collections.emptyList());
         Long cardId = 123L;
-        when(cardService.getOne(eq(cardId), eq(validToken)))
+        when(cardService.getOne(eq(cardId), eq(principal), isNull()))
                 .thenReturn(ResponseEntity.ok().build());
-        ResponseEntity<?> response = cardController.card("Bearer " + validToken, cardId);
-        verify(cardService, times(1)).getOne(eq(cardId), eq(validToken));
+        ResponseEntity<?> response = cardController.card(principal, cardId, null);
+        verify(cardService, times(1)).getOne(eq(cardId), eq(principal), isNull());
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    public void testGetCard_InvalidToken() {
+    public void testGetCard_Unauthenticated() {
         Long cardId = 123L;
-        ResponseEntity<?> response = cardController.card("InvalidToken", cardId);
+        ResponseEntity<?> response = cardController.card(null, cardId, null);
         assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
     }
 }
@@ -0,0 +1,195 @@
+package com.kogi.cards_restful;
+
+import com.kogi.cards_restful.payload.request.CardCountMode;
+import com.kogi.cards_restful.payload.request.CardListView;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import com.kogi.cards_restful.services.CardService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.kogi.cards_restful.models.ERole.ROLE_ADMIN;
+import static com.kogi.cards_restful.models.ERole.ROLE_MEMBER;
+
+/**
+ * Runs each card search through the service, captures the SQL Hibernate sends for it and fails if EXPLAIN of
+ * that SQL plans a full scan of cards.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CardSearchIndexIntegrationTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    /**
+     * A parameter marker with the column and operator, or the keyword, right before it.
+     */
+    private static final Pattern PARAMETER = Pattern.compile(
+            "(?:(\\w+)\\s*(>=|<=|=|<|>)|(limit|offset|against\\s*\\(|,))\\s*\\?", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern CARDS_QUERY = Pattern.compile("^\\s*select\\b.*\\bfrom cards\\b", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    @TestConfiguration
+    static class StatementCapture {
+        @Bean
+        HibernatePropertiesCustomizer statementInspector() {
+            StatementInspector inspector = sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UserDetailsImpl member = new UserDetailsImpl(1L, "member@gmail.com", null,
+            List.of(new SimpleGrantedAuthority(ROLE_MEMBER.name())));
+
+    private final UserDetailsImpl admin = new UserDetailsImpl(2L, "admin@gmail.com", null,
+            List.of(new SimpleGrantedAuthority(ROLE_ADMIN.name())));
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        values.put("creator_id =", 1L);
+        values.put("limit", 10);
+        values.put(",", 10);
+        values.put("offset", 0);
+    }
+
+    @Test
+    public void testMemberListUsesIndex() {
+        search(member, null, null, null, null, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testMemberSearchByNameUsesIndex() {
+        values.put("name =", "Card Name");
+        search(member, "Card Name", null, null, null, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testMemberSearchByColorUsesIndex() {
+        values.put("color =", "#000000");
+        search(member, null, null, "#000000", null, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testMemberSearchByStatusUsesIndex() {
+        values.put("card_status =", 0);
+        search(member, null, null, null, null, "TODO");
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testMemberSearchByDescriptionUsesIndex() {
+        values.put("description =", "Card Description");
+        search(member, null, "Card Description", null, null, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testMemberSearchByDateUsesIndex() {
+        LocalDate date = LocalDate.of(2023, 8, 30);
+        values.put("created_at >=", date.atStartOfDay());
+        values.put("created_at <", date.plusDays(1).atStartOfDay());
+        search(member, null, null, null, date, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testSearchByDateUsesIndex() {
+        LocalDate date = LocalDate.of(2023, 8, 30);
+        values.put("created_at >=", date.atStartOfDay());
+        values.put("created_at <", date.plusDays(1).atStartOfDay());
+        search(admin, null, null, null, date, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testMemberTextSearchUsesIndex() {
+        values.put("against(", "+card* +nam*");
+        STATEMENTS.clear();
+        cardService.searchText(PageRequest.of(0, 10), member, "card nam", CardListView.FULL, CardCountMode.NONE, null);
+        assertNoFullScan();
+    }
+
+    @Test
+    public void testTextSearchUsesIndex() {
+        values.put("against(", "+card*");
+        STATEMENTS.clear();
+        cardService.searchText(PageRequest.of(0, 10), admin, "card", CardListView.FULL, CardCountMode.NONE, null);
+        assertNoFullScan();
+    }
+
+    private void search(UserDetailsImpl principal, String name, String description, String color, LocalDate date, String status) {
+        STATEMENTS.clear();
+        cardService.search(PageRequest.of(0, 10), principal, name, description, color, date, status,
+                CardListView.FULL, CardCountMode.NONE, null);
+    }
+
+    /**
+     * Explains every captured query reading cards, binding each parameter by the column or keyword before it.
+     */
+    private void assertNoFullScan() {
+        List<String> queries = new ArrayList<>();
+        for (String sql : STATEMENTS) {
+            if (CARDS_QUERY.matcher(sql).find()) {
+                queries.add(sql);
+            }
+        }
+        Assert.assertFalse("No query read cards: " + STATEMENTS, queries.isEmpty());
+        for (String sql : queries) {
+            List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, bind(sql));
+            Assert.assertFalse(plan.isEmpty());
+            for (Map<String, Object> row : plan) {
+                Assert.assertNotEquals("Full scan for: " + sql + " plan: " + plan, "ALL", row.get("type"));
+            }
+        }
+    }
+
+    private Object[] bind(String sql) {
+        List<Object> args = new ArrayList<>();
+        Matcher matcher = PARAMETER.matcher(sql);
+        while (matcher.find()) {
+            String key = matcher.group(1) != null
+                    ? matcher.group(1).toLowerCase(Locale.ROOT) + " " + matcher.group(2)
+                    : matcher.group(3).toLowerCase(Locale.ROOT).replaceAll("\\s+", "");
+            Assert.assertTrue("No value for parameter '" + key + "' of: " + sql, values.containsKey(key));
+            args.add(values.get(key));
+        }
+        Assert.assertEquals("Unmatched parameter in: " + sql, sql.chars().filter(c -> c == '?').count(), args.size());
+        return args.toArray();
+    }
+}
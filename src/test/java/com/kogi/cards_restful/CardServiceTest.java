@@ -1,29 +1,70 @@
 package com.kogi.cards_restful;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.models.CardStatus;
 import com.kogi.cards_restful.models.Role;
 import com.kogi.cards_restful.models.User;
+import com.kogi.cards_restful.payload.request.CardCountMode;
+import com.kogi.cards_restful.payload.request.CardCursor;
+import com.kogi.cards_restful.payload.request.CardExportFormat;
+import com.kogi.cards_restful.payload.request.CardListView;
 import com.kogi.cards_restful.payload.request.CreateCardRequest;
 import com.kogi.cards_restful.payload.request.PatchCardRequest;
+import com.kogi.cards_restful.payload.response.BulkCardUpdateResponse;
+import com.kogi.cards_restful.payload.response.BulkCreateCardResponse;
+import com.kogi.cards_restful.payload.response.CardBatchResponse;
+import com.kogi.cards_restful.payload.response.CardBoardColumn;
+import com.kogi.cards_restful.payload.response.CardBoardResponse;
+import com.kogi.cards_restful.payload.response.CardCursorPage;
+import com.kogi.cards_restful.payload.response.CardImportResponse;
+import com.kogi.cards_restful.payload.response.CardNamesResponse;
+import com.kogi.cards_restful.payload.response.CardStatsResponse;
+import com.kogi.cards_restful.payload.response.CardSummary;
+import com.kogi.cards_restful.payload.response.CardView;
+import com.kogi.cards_restful.payload.response.CardViewResponse;
+import com.kogi.cards_restful.payload.response.CountedPage;
 import com.kogi.cards_restful.payload.response.MessageResponse;
+import com.kogi.cards_restful.repository.CardGroupCount;
+import com.kogi.cards_restful.repository.CardPatchState;
 import com.kogi.cards_restful.repository.CardRepository;
 import com.kogi.cards_restful.repository.UserRepository;
-import com.kogi.cards_restful.security.jwt.JwtUtils;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import com.kogi.cards_restful.services.CardCountCache;
+import com.kogi.cards_restful.services.CardETags;
+import com.kogi.cards_restful.services.CardNameIndex;
+import com.kogi.cards_restful.services.CardReadModel;
 import com.kogi.cards_restful.services.CardServiceImpl;
+import com.kogi.cards_restful.services.CardStatsService;
+import com.kogi.cards_restful.services.UserCardIndex;
+import com.kogi.cards_restful.services.UserCardNames;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static com.kogi.cards_restful.models.ERole.ROLE_ADMIN;
 import static com.kogi.cards_restful.models.ERole.ROLE_MEMBER;
@@ -32,7 +73,7 @@ import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CardServiceTest {
-
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
 
     @Mock
     private UserRepository userRepository;
@@ -41,71 +82,128 @@ public class CardServiceTest {
     private CardRepository cardRepository;
 
     @Mock
-    private JwtUtils jwtUtils;
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CardCountCache cardCountCache;
+
+    @Mock
+    private CardStatsService cardStatsService;
+
+    @Mock
+    private CardReadModel cardReadModel;
+
+    @Mock
+    private CardNameIndex cardNameIndex;
 
     @InjectMocks
     private CardServiceImpl cardService;
 
     @Test
     public void testCreateCard() {
-        String jwtToken = "exampleJwtToken";
         CreateCardRequest createCardRequest = new CreateCardRequest();
 
         User mockUser = new User();
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        mockUser.setId(1L);
+        mockUser.setEmail("member@example.com");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        User creatorReference = Mockito.mock(User.class);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(creatorReference);
 
         Card mockCard = new Card();
+        mockCard.setCreator(creatorReference);
         Mockito.when(cardRepository.save(Mockito.any(Card.class))).thenReturn(mockCard);
 
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-
 
-        ResponseEntity<?> response = cardService.createCard(createCardRequest, jwtToken);
+        ResponseEntity<?> response = cardService.createCard(createCardRequest, principal);
 
-        Mockito.verify(userRepository, times(1)).findByEmail(Mockito.anyString());
+        Mockito.verify(userRepository, times(1)).getReferenceById(Mockito.anyLong());
+        Assertions.assertEquals("member@example.com", ((CardViewResponse) response.getBody()).getCard().getCreator());
+        Mockito.verifyNoInteractions(creatorReference);
+        Mockito.verify(cardReadModel).invalidate(1L);
+        Mockito.verify(cardNameIndex).invalidate(1L);
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
-    public void testCreateCardWrongToken() {
-        String jwtToken = "exampleJwtToken";
-        CreateCardRequest createCardRequest = new CreateCardRequest();
-
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.empty());
+    public void testCreateCards() {
+        CreateCardRequest first = new CreateCardRequest();
+        first.setName("First");
+        CreateCardRequest second = new CreateCardRequest();
+        second.setName("Second");
 
-        Card mockCard = new Card();
-        Mockito.when(cardRepository.save(Mockito.any(Card.class))).thenReturn(mockCard);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
+
+        Mockito.when(cardRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Card> cards = invocation.getArgument(0);
+            long id = 100;
+            for (Card card : cards) {
+                card.setId(id++);
+            }
+            return cards;
+        });
+
+        ResponseEntity<?> response = cardService.createCards(List.of(first, second), principal);
+
+        Mockito.verify(userRepository, times(1)).getReferenceById(Mockito.anyLong());
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(List.of(100L, 101L), ((BulkCreateCardResponse) response.getBody()).getIds());
+    }
 
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+    @Test
+    public void testImportCardsReportsInvalidLines() throws Exception {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
 
+        String body = "{\"name\":\"First\",\"color\":\"#000000\"}\n"
+                + "{\"name\":\n"
+                + "\n"
+                + "{\"name\":\"Second\"}\r\n";
 
-        ResponseEntity<?> response = cardService.createCard(createCardRequest, jwtToken);
+        ResponseEntity<?> response = cardService.importCards(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), principal);
 
-        Mockito.verify(userRepository, times(1)).findByEmail(Mockito.anyString());
-        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        CardImportResponse importResponse = (CardImportResponse) response.getBody();
+        Assertions.assertEquals(2, importResponse.getImported());
+        Assertions.assertEquals(1, importResponse.getRejected());
+        Assertions.assertEquals(2, importResponse.getErrors().get(0).getLine());
+        Mockito.verify(cardRepository, times(1)).saveAll(Mockito.anyList());
+        Mockito.verify(entityManager, times(1)).clear();
     }
 
     @Test
     public void testListForAdmin() {
-        String jwtToken = "exampleJwtToken";
         Pageable pageable = Mockito.mock(Pageable.class);
 
         Role adminRole = new Role(ROLE_ADMIN);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
-        Card mockCard = new Card();
-        mockCard.setCreator(mockUser);
-        List<Card> cardList = new ArrayList<>();
+        CardView mockCard = cardView(1L, mockUser);
+        List<CardView> cardList = new ArrayList<>();
         cardList.add(mockCard);
-        Page<Card> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
+        Page<CardView> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
 
-        Mockito.when(cardRepository.findAll(Mockito.any(Pageable.class))).thenReturn(mockCards);
+        Mockito.when(cardRepository.findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(mockCards);
 
-        ResponseEntity<?> response = cardService.list(pageable, jwtToken);
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, null);
 
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
         Assertions.assertEquals(ResponseEntity.ok(mockCards).getBody(), response.getBody());
@@ -114,50 +212,43 @@ public class CardServiceTest {
 
     @Test
     public void testListForAdminNotAdmin() {
-        String jwtToken = "exampleJwtToken";
         Pageable pageable = Mockito.mock(Pageable.class);
 
         Role adminRole = new Role(ROLE_MEMBER);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
-        Card mockCard = new Card();
-        mockCard.setCreator(mockUser);
-        List<Card> cardList = new ArrayList<>();
-        cardList.add(mockCard);
-        Page<Card> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
+        Page<CardView> noCards = PageMockFactory.createPageMock(new ArrayList<>(), pageable, 0);
+        Mockito.when(cardRepository.findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(noCards);
 
-        Mockito.when(cardRepository.findAll(Mockito.any(Pageable.class))).thenReturn(mockCards);
-
-        ResponseEntity<?> response = cardService.list(pageable, jwtToken);
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, null);
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
-        Assertions.assertEquals(ResponseEntity.ok(null).getBody(), response.getBody());
+        Assertions.assertTrue(((Page<?>) response.getBody()).isEmpty());
+        Mockito.verify(cardStatsService).readChangeCount(1L);
     }
 
     @Test
     public void testListForMember() {
-        String jwtToken = "exampleJwtToken";
         Pageable pageable = Mockito.mock(Pageable.class);
 
         Role role = new Role(ROLE_MEMBER);
         Set<Role> roles = Collections.singleton(role);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(roles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
-        Card mockCard = new Card();
-        mockCard.setCreator(mockUser);
-        List<Card> cardList = new ArrayList<>();
+        CardView mockCard = cardView(1L, mockUser);
+        List<CardView> cardList = new ArrayList<>();
         cardList.add(mockCard);
-        Page<Card> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
+        Page<CardView> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
 
-        Mockito.when(cardRepository.findByCreator(Mockito.any(User.class),Mockito.any(Pageable.class))).thenReturn(mockCards);
+        Mockito.when(cardRepository.findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(mockCards);
 
-        ResponseEntity<?> response = cardService.list(pageable, jwtToken);
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, null);
 
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
         System.out.println(response.getBody());
@@ -167,141 +258,624 @@ public class CardServiceTest {
 
     @Test
     public void testListForMemberNotMember() {
-        String jwtToken = "exampleJwtToken";
         Pageable pageable = Mockito.mock(Pageable.class);
 
         Role adminRole = new Role(ROLE_ADMIN);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
-        Card mockCard = new Card();
-        mockCard.setCreator(mockUser);
-        List<Card> cardList = new ArrayList<>();
+        CardView mockCard = cardView(1L, mockUser);
+        List<CardView> cardList = new ArrayList<>();
         cardList.add(mockCard);
-        Page<Card> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
+        Page<CardView> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
 
-        Mockito.when(cardRepository.findAll(Mockito.any(Pageable.class))).thenReturn(mockCards);
+        Mockito.when(cardRepository.findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(mockCards);
 
-        ResponseEntity<?> response = cardService.list(pageable, jwtToken);
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, null);
 
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
         Assertions.assertEquals(ResponseEntity.ok(mockCards).getBody(), response.getBody());
     }
 
+    @Test
+    public void testListSummaryView() {
+        Pageable pageable = Mockito.mock(Pageable.class);
+
+        Role role = new Role(ROLE_MEMBER);
+        Set<Role> roles = Collections.singleton(role);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(roles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardSummary> cardList = new ArrayList<>();
+        cardList.add(new CardSummary(1L, "Card 1", null, CardStatus.TODO, LocalDateTime.of(2023, 8, 30, 10, 0), mockUser.getEmail(), 0L));
+        Page<CardSummary> mockCards = PageMockFactory.createPageMock(cardList, pageable, cardList.size());
+
+        Mockito.when(cardRepository.findSummaries(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(mockCards);
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.SUMMARY, CardCountMode.EXACT, null);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(mockCards, response.getBody());
+        Mockito.verify(cardRepository, never()).findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void testListWithoutCount() {
+        Pageable pageable = PageRequest.of(0, 2);
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardSummary> cardList = List.of(cardView(3L, mockUser), cardView(2L, mockUser), cardView(1L, mockUser));
+        Mockito.when(cardRepository.findContent(Mockito.any(Specification.class), Mockito.eq(pageable), Mockito.eq(CardListView.FULL), Mockito.eq(3))).thenReturn(cardList);
+
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.NONE, null);
+
+        Slice<?> slice = (Slice<?>) response.getBody();
+        Assertions.assertEquals(2, slice.getNumberOfElements());
+        Assertions.assertTrue(slice.hasNext());
+        // The page and the change counter, read by primary key, are the only reads: no count and no aggregate.
+        Mockito.verify(cardRepository).findContent(Mockito.any(Specification.class), Mockito.eq(pageable), Mockito.eq(CardListView.FULL), Mockito.eq(3));
+        Mockito.verify(cardStatsService).readChangeCount(1L);
+        Mockito.verifyNoMoreInteractions(cardRepository, cardStatsService);
+        Mockito.verifyNoInteractions(cardCountCache);
+    }
+
+    @Test
+    public void testListWithoutCountForAdmin() {
+        Pageable pageable = PageRequest.of(0, 2);
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_ADMIN)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardSummary> cardList = List.of(cardView(2L, mockUser));
+        Mockito.when(cardRepository.findContent(Mockito.any(Specification.class), Mockito.eq(pageable), Mockito.eq(CardListView.FULL), Mockito.eq(3))).thenReturn(cardList);
+
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.NONE, null);
+
+        Slice<?> slice = (Slice<?>) response.getBody();
+        Assertions.assertEquals(1, slice.getNumberOfElements());
+        Assertions.assertFalse(slice.hasNext());
+        Mockito.verify(cardRepository).findContent(Mockito.any(Specification.class), Mockito.eq(pageable), Mockito.eq(CardListView.FULL), Mockito.eq(3));
+        Mockito.verify(cardStatsService).readChangeCount(null);
+        Mockito.verifyNoMoreInteractions(cardRepository, cardStatsService);
+        Mockito.verifyNoInteractions(cardCountCache);
+    }
+
+    @Test
+    public void testListWithCachedCount() {
+        Pageable pageable = PageRequest.of(0, 2);
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardSummary> cardList = List.of(cardView(3L, mockUser), cardView(2L, mockUser));
+        Mockito.when(cardRepository.findContent(Mockito.any(Specification.class), Mockito.eq(pageable), Mockito.eq(CardListView.FULL), Mockito.eq(2))).thenReturn(cardList);
+        Mockito.when(cardCountCache.get(Mockito.eq("1|list"), Mockito.any())).thenReturn(42L);
+
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.CACHED, null);
+
+        CountedPage<?> page = (CountedPage<?>) response.getBody();
+        Assertions.assertEquals(42L, page.getTotalElements());
+        Assertions.assertFalse(page.isTotalExact());
+    }
+
     @Test
     public void testSearch() {
-        String jwtToken = "exampleJwtToken";
         Pageable pageable = Mockito.mock(Pageable.class);
 
         Role adminRole = new Role(ROLE_ADMIN);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
 
         Page mockCards = mock(Page.class);
-        when(cardRepository.findAll(Mockito.any(Specification.class), any(Pageable.class))).thenReturn(mockCards);
+        when(cardRepository.findViews(Mockito.any(Specification.class), any(Pageable.class))).thenReturn(mockCards);
+
+        ResponseEntity<?> response = cardService.search(pageable, principal, "Card Name", null, "Red", null, "TODO", CardListView.FULL, CardCountMode.EXACT, null);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+
+    @Test
+    public void testSearchForMemberFromReadModel() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        CardView done = new CardView(4L, "Card 4", null, "Red", CardStatus.DONE,
+                LocalDateTime.of(2023, 8, 30, 10, 4), mockUser.getEmail(), 1L);
+        UserCardIndex index = UserCardIndex.of(List.of(done, cardView(3L, mockUser), cardView(2L, mockUser), cardView(1L, mockUser)), 0);
+        Mockito.when(cardReadModel.get(1L)).thenReturn(index);
+
+        ResponseEntity<?> response = cardService.search(PageRequest.of(0, 2), principal, null, null, null, null, "TODO", CardListView.FULL, CardCountMode.EXACT, null);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Page<?> page = (Page<?>) response.getBody();
+        Assertions.assertEquals(3, page.getTotalElements());
+        Assertions.assertEquals(List.of(3L, 2L), page.getContent().stream().map(card -> ((CardSummary) card).getId()).toList());
+        Assertions.assertNotNull(response.getHeaders().getETag());
+        Mockito.verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    public void testListFromReadModelFallsBackForOtherSorts() {
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("name"));
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardReadModel.get(1L)).thenReturn(UserCardIndex.of(List.of(cardView(1L, mockUser)), 0));
+        Page<CardView> mockCards = PageMockFactory.createPageMock(List.of(cardView(1L, mockUser)), pageable, 1);
+        Mockito.when(cardRepository.findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class))).thenReturn(mockCards);
+
+        ResponseEntity<?> response = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, null);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(mockCards, response.getBody());
+    }
+
+    @Test
+    public void testListWithoutSortHasTheSameOrderFromDatabaseAndReadModel() {
+        Pageable pageable = PageRequest.of(0, 10);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        // Cards 1 and 2 were created in the same second, card 4 was imported with an older date.
+        List<CardSummary> stored = List.of(
+                new CardView(1L, "Card 1", null, null, CardStatus.TODO, LocalDateTime.of(2023, 8, 30, 10, 0), null, 0L),
+                new CardView(2L, "Card 2", null, null, CardStatus.TODO, LocalDateTime.of(2023, 8, 30, 10, 0), null, 0L),
+                new CardView(3L, "Card 3", null, null, CardStatus.TODO, LocalDateTime.of(2023, 8, 30, 10, 5), null, 0L),
+                new CardView(4L, "Card 4", null, null, CardStatus.TODO, LocalDateTime.of(2023, 8, 29, 9, 0), null, 0L));
+        List<CardView> loaded = new ArrayList<>();
+        for (CardSummary card : inDatabaseOrder(stored, NEWEST_FIRST)) {
+            loaded.add((CardView) card);
+        }
+        Mockito.when(cardReadModel.isEnabled()).thenReturn(true);
+        Mockito.when(cardReadModel.get(1L)).thenReturn(null, UserCardIndex.of(loaded, 0));
+        Mockito.when(cardRepository.findContent(Mockito.any(Specification.class), Mockito.any(Pageable.class), Mockito.eq(CardListView.FULL), Mockito.eq(11)))
+                .thenAnswer(invocation -> inDatabaseOrder(stored, ((Pageable) invocation.getArgument(1)).getSort()));
+
+        Slice<?> cold = (Slice<?>) cardService.list(pageable, principal, CardListView.FULL, CardCountMode.NONE, null).getBody();
+        Slice<?> warm = (Slice<?>) cardService.list(pageable, principal, CardListView.FULL, CardCountMode.NONE, null).getBody();
+
+        List<Long> coldIds = cold.getContent().stream().map(card -> ((CardSummary) card).getId()).toList();
+        List<Long> warmIds = warm.getContent().stream().map(card -> ((CardSummary) card).getId()).toList();
+        Assertions.assertEquals(List.of(3L, 2L, 1L, 4L), coldIds);
+        Assertions.assertEquals(coldIds, warmIds);
+        Mockito.verify(cardRepository, times(1)).findContent(Mockito.any(Specification.class), Mockito.eq(PageRequest.of(0, 10, NEWEST_FIRST)), Mockito.eq(CardListView.FULL), Mockito.eq(11));
+    }
+
+    @Test
+    public void testSearchTextForMemberRequiresEveryWordPrefix() {
+        Pageable pageable = PageRequest.of(0, 2);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardSummary> cards = List.of(cardView(3L, mockUser), cardView(2L, mockUser), cardView(1L, mockUser));
+        Mockito.when(cardRepository.findByText(1L, "+Pla* +rev_1*", CardListView.FULL, 0L, 3)).thenReturn(cards);
+
+        ResponseEntity<?> response = cardService.searchText(pageable, principal, " Pla, \"rev_1\"* -", CardListView.FULL, CardCountMode.NONE, null);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Slice<?> slice = (Slice<?>) response.getBody();
+        Assertions.assertEquals(cards.subList(0, 2), slice.getContent());
+        Assertions.assertTrue(slice.hasNext());
+        Mockito.verify(cardRepository).findByText(1L, "+Pla* +rev_1*", CardListView.FULL, 0L, 3);
+        Mockito.verify(cardStatsService).readChangeCount(1L);
+        Mockito.verifyNoMoreInteractions(cardRepository, cardStatsService);
+        Mockito.verifyNoInteractions(cardCountCache);
+    }
+
+    @Test
+    public void testSearchTextWithoutWords() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        ResponseEntity<?> response = cardService.searchText(PageRequest.of(0, 2), principal, "+-*\"", CardListView.FULL, CardCountMode.EXACT, null);
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    public void testSuggestNamesFromNameIndex() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardNameIndex.get(1L)).thenReturn(UserCardNames.of(List.of("Plan", "review", "Plan", "plant", "PLANE", "Pay")));
+
+        ResponseEntity<?> response = cardService.suggestNames("pla", 2, principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(List.of("Plan", "PLANE"), ((CardNamesResponse) response.getBody()).getNames());
+        Mockito.verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    public void testSuggestNamesFallsBackToDatabase() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardRepository.findNamesByCreatorIdStartingWith(1L, "50!%!_", PageRequest.of(0, 50))).thenReturn(List.of("50%_done"));
+
+        ResponseEntity<?> response = cardService.suggestNames("50%_", 500, principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(List.of("50%_done"), ((CardNamesResponse) response.getBody()).getNames());
+    }
+
+    @Test
+    public void testListAfterReturnsNextCursor() {
+        Role role = new Role(ROLE_MEMBER);
+        Set<Role> roles = Collections.singleton(role);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(roles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardView> cardList = new ArrayList<>();
+        for (long id = 3; id > 0; id--) {
+            cardList.add(cardView(id, mockUser));
+        }
+        Mockito.when(cardRepository.findPageAfter(Mockito.any(Specification.class), Mockito.isNull(), Mockito.eq(3))).thenReturn(cardList);
+
+        ResponseEntity<?> response = cardService.listAfter(null, 2, principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        CardCursorPage page = (CardCursorPage) response.getBody();
+        Assertions.assertEquals(2, page.getContent().size());
+        CardCursor nextCursor = CardCursor.decode(page.getNextCursor());
+        Assertions.assertEquals(2L, nextCursor.getId());
+        Assertions.assertEquals(cardList.get(1).getCreatedAt(), nextCursor.getCreatedAt());
+    }
+
+    @Test
+    public void testListAfterInvalidCursor() {
+        Role role = new Role(ROLE_MEMBER);
+        Set<Role> roles = Collections.singleton(role);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(roles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        ResponseEntity<?> response = cardService.listAfter("not-a-cursor", 20, principal);
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    public void testExportNdjsonForMember() throws Exception {
+        Role role = new Role(ROLE_MEMBER);
+        Set<Role> roles = Collections.singleton(role);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(roles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        ResponseEntity<?> response = cardService.search(pageable, jwtToken, "Card Name", null, "Red", null, "TODO");
+        Mockito.when(cardRepository.streamByCreatorId(1L)).thenReturn(Stream.of(cardView(1L, mockUser), cardView(2L, mockUser)));
+
+        ResponseEntity<StreamingResponseBody> response = cardService.export(principal, CardExportFormat.NDJSON);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
 
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+        Mockito.verify(cardRepository, never()).streamAll();
     }
 
+    @Test
+    public void testExportCsvEscapesValues() throws Exception {
+        Role adminRole = new Role(ROLE_ADMIN);
+        Set<Role> adminRoles = Collections.singleton(adminRole);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(adminRoles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        CardView card = new CardView(1L, "Plan, \"draft\"", null, "#000000", CardStatus.TODO,
+                LocalDateTime.of(2023, 8, 30, 10, 0), "admin@gmail.com", 0L);
+        Mockito.when(cardRepository.streamAll()).thenReturn(Stream.of(card));
+
+        ResponseEntity<StreamingResponseBody> response = cardService.export(principal, CardExportFormat.CSV);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        Assertions.assertEquals("id,name,description,color,cardStatus,createdAt,creator,version", lines[0]);
+        Assertions.assertEquals("1,\"Plan, \"\"draft\"\"\",,#000000,TODO,2023-08-30T10:00,admin@gmail.com,0", lines[1]);
+    }
 
     @Test
     public void testGetOneForAdmin() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         Role adminRole = new Role(ROLE_ADMIN);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
 
         Card mockCard = new Card();
         Mockito.when(cardRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(mockCard));
 
-        ResponseEntity<?> response = cardService.getOne(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.getOne(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.ok(Optional.of(mockCard)).getBody(), response.getBody());
     }
 
     @Test
     public void testGetOneForNonAdminWithAdminCard() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         Role adminRole = new Role(ROLE_MEMBER);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
 
         Card mockCard = new Card();
         mockCard.setCreator(mockUser);
         Mockito.when(cardRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(mockCard));
 
-        ResponseEntity<?> response = cardService.getOne(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.getOne(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.ok(null).getBody(), response.getBody());
     }
 
     @Test
     public void testGetOneNotFound() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         User mockUser = new User();
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
 
         Mockito.when(cardRepository.findByIdAndCreator(Mockito.anyLong(), Mockito.any(User.class))).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = cardService.getOne(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.getOne(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.notFound().build(), response);
     }
 
+    @Test
+    public void testListNotModified() {
+        Pageable pageable = Mockito.mock(Pageable.class);
+
+        Role role = new Role(ROLE_MEMBER);
+        Set<Role> roles = Collections.singleton(role);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(roles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardStatsService.readChangeCount(1L)).thenReturn(15L);
+
+        ResponseEntity<?> first = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, null);
+        String etag = first.getHeaders().getETag();
+        Assertions.assertNotNull(etag);
+
+        ResponseEntity<?> second = cardService.list(pageable, principal, CardListView.FULL, CardCountMode.EXACT, etag);
+
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        Assertions.assertNull(second.getBody());
+        Mockito.verify(cardRepository, times(1)).findViews(Mockito.any(Specification.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void testGetOneNotModified() {
+        Long cardId = 1L;
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardRepository.findVersionByIdAndCreatorId(cardId, 1L)).thenReturn(Optional.of(4L));
+
+        ResponseEntity<?> response = cardService.getOne(cardId, principal, CardETags.of(4L));
+
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        Assertions.assertEquals(CardETags.of(4L), response.getHeaders().getETag());
+        Mockito.verify(cardRepository, never()).findByIdAndCreator(Mockito.anyLong(), Mockito.any(User.class));
+    }
+
     @Test
     public void testPatchCardForAdmin() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
         PatchCardRequest partialUpdateDto = new PatchCardRequest();
         partialUpdateDto.setName("Updated Name");
-        partialUpdateDto.setColor("#46464");
+        partialUpdateDto.setDescription("Updated Description");
+
+        Role adminRole = new Role(ROLE_ADMIN);
+        Set<Role> adminRoles = Collections.singleton(adminRole);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(adminRoles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        CardPatchState state = patchState(9L, CardStatus.TODO, "#000000", 0L);
+        Mockito.when(cardRepository.lockPatchStateById(cardId)).thenReturn(Optional.of(state));
+        Mockito.when(cardRepository.patch(cardId, null, null, partialUpdateDto)).thenReturn(1);
+        Mockito.when(cardRepository.findViewsByIdIn(List.of(cardId))).thenReturn(List.of(cardView(cardId, mockUser)));
+
+        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, principal, null, true);
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(CardETags.of(0L), response.getHeaders().getETag());
+        Mockito.verify(cardRepository, never()).findById(Mockito.anyLong());
+        // Only the owner's copies are dropped, an admin rename does not reach other creators.
+        Mockito.verify(cardReadModel).invalidate(9L);
+        Mockito.verify(cardNameIndex).invalidate(9L);
+        Mockito.verify(cardStatsService).cardChanged(9L, CardStatus.TODO, "#000000", CardStatus.TODO, "#000000");
+    }
+
+    @Test
+    public void testPatchCardReturnMinimal() {
+        Long cardId = 1L;
+        PatchCardRequest partialUpdateDto = new PatchCardRequest();
+        partialUpdateDto.setName("Updated Name");
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardRepository.patch(cardId, 1L, List.of(3L), partialUpdateDto)).thenReturn(1);
+
+        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, principal, "\"3\"", false);
+
+        Assertions.assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        Assertions.assertEquals(CardETags.of(4L), response.getHeaders().getETag());
+        Mockito.verify(cardRepository, never()).findViewsByIdIn(Mockito.anyCollection());
+        // A member rename is one UPDATE, the card is not locked first.
+        Mockito.verify(cardRepository, never()).lockPatchStateByIdAndCreatorId(Mockito.anyLong(), Mockito.anyLong());
+        Mockito.verify(cardReadModel).invalidate(1L);
+        Mockito.verify(cardNameIndex).invalidate(1L);
+        Mockito.verify(cardStatsService).cardUpdated(1L);
+    }
+
+    @Test
+    public void testPatchCardForMemberWithStaleIfMatch() {
+        Long cardId = 1L;
+        PatchCardRequest partialUpdateDto = new PatchCardRequest();
+        partialUpdateDto.setDescription("Updated Description");
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardRepository.patch(cardId, 1L, List.of(2L), partialUpdateDto)).thenReturn(0);
+        Mockito.when(cardRepository.findVersionByIdAndCreatorId(cardId, 1L)).thenReturn(Optional.of(3L));
+
+        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, principal, "\"2\"", true);
+
+        Assertions.assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Mockito.verifyNoInteractions(cardStatsService, cardReadModel);
+    }
+
+    @Test
+    public void testPatchCardForMemberCardNotFoundWithoutLocking() {
+        Long cardId = 1L;
+        PatchCardRequest partialUpdateDto = new PatchCardRequest();
+        partialUpdateDto.setName("Updated Name");
+
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardRepository.patch(cardId, 1L, null, partialUpdateDto)).thenReturn(0);
+        Mockito.when(cardRepository.findVersionByIdAndCreatorId(cardId, 1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, principal, null, true);
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        Mockito.verify(cardRepository, never()).lockPatchStateByIdAndCreatorId(Mockito.anyLong(), Mockito.anyLong());
+        Mockito.verifyNoInteractions(cardStatsService);
+    }
+
+    @Test
+    public void testPatchCardStatusMovesStats() {
+        PatchCardRequest partialUpdateDto = new PatchCardRequest();
+        partialUpdateDto.setStatus("DONE");
+
+        User mockUser = new User();
+        mockUser.setId(7L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_ADMIN)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        CardPatchState state = patchState(9L, CardStatus.TODO, "#000000", 2L);
+        Mockito.when(cardRepository.lockPatchStateById(1L)).thenReturn(Optional.of(state));
+        Mockito.when(cardRepository.patch(1L, null, null, partialUpdateDto)).thenReturn(1);
+
+        ResponseEntity<?> response = cardService.patchCard(1L, partialUpdateDto, principal, null, false);
+
+        Assertions.assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        Assertions.assertEquals(CardETags.of(3L), response.getHeaders().getETag());
+        Mockito.verify(cardStatsService).cardChanged(9L, CardStatus.TODO, "#000000", CardStatus.DONE, "#000000");
+    }
+
+    @Test
+    public void testPatchCardWithStaleIfMatch() {
+        Long cardId = 1L;
+        PatchCardRequest partialUpdateDto = new PatchCardRequest();
+        partialUpdateDto.setName("Updated Name");
 
         Role adminRole = new Role(ROLE_ADMIN);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        CardPatchState state = Mockito.mock(CardPatchState.class);
+        Mockito.when(state.getVersion()).thenReturn(3L);
+        Mockito.when(cardRepository.lockPatchStateById(cardId)).thenReturn(Optional.of(state));
+        // The UPDATE is the only If-Match check, it matches no row.
+        Mockito.when(cardRepository.patch(cardId, null, List.of(2L), partialUpdateDto)).thenReturn(0);
+        Mockito.when(cardRepository.findVersionById(cardId)).thenReturn(Optional.of(3L));
+
+        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, principal, "\"2\"", true);
+
+        Assertions.assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Mockito.verifyNoInteractions(cardStatsService);
+    }
+
+    @Test
+    public void testDeleteCardWithMatchingIfMatch() {
+        Long cardId = 1L;
+
+        Role adminRole = new Role(ROLE_ADMIN);
+        Set<Role> adminRoles = Collections.singleton(adminRole);
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(adminRoles);
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
         Card mockCard = new Card();
         mockCard.setCreator(mockUser);
+        mockCard.setVersion(3L);
         Mockito.when(cardRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(mockCard));
 
-        Card updatedCard = new Card();
-        updatedCard.setCreator(mockUser);
-        Mockito.when(cardRepository.save(Mockito.any(Card.class))).thenReturn(updatedCard);
+        ResponseEntity<?> response = cardService.deleteCard(cardId, principal, "\"3\"");
 
-        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, jwtToken);
         Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Mockito.verify(cardRepository, times(1)).delete(mockCard);
+        Mockito.verify(cardStatsService).cardRemoved(1L, mockCard);
     }
 
     @Test
     public void testPatchCardForNonAdminCardNotFound() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
         PatchCardRequest partialUpdateDto = new PatchCardRequest();
         partialUpdateDto.setName("Updated Name");
@@ -310,103 +884,235 @@ public class CardServiceTest {
         Role adminRole = new Role(ROLE_MEMBER);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-
-        Card mockCard = new Card();
-        mockCard.setCreator(mockUser);
-        Mockito.when(cardRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(mockCard));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
-        Card updatedCard = new Card();
-        mockCard.setCreator(mockUser);
-        Mockito.when(cardRepository.save(Mockito.any(Card.class))).thenReturn(updatedCard);
+        Mockito.when(cardRepository.lockPatchStateByIdAndCreatorId(cardId, 1L)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, jwtToken);
+        ResponseEntity<?> response = cardService.patchCard(cardId, partialUpdateDto, principal, null, true);
 
         Assertions.assertEquals(ResponseEntity.notFound().build().getStatusCode(), response.getStatusCode());
+        Mockito.verify(cardRepository, never()).patch(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any());
     }
 
-
     @Test
     public void testDeleteCardForAdmin() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         Role adminRole = new Role(ROLE_ADMIN);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
 
         Card mockCard = new Card();
         mockCard.setCreator(mockUser);
         Mockito.when(cardRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(mockCard));
 
-        ResponseEntity<?> response = cardService.deleteCard(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.deleteCard(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.ok(new MessageResponse("Card deleted")).getStatusCode(), response.getStatusCode());
     }
 
     @Test
     public void testDeleteCardForMember() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         Role adminRole = new Role(ROLE_MEMBER);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
 
         Card mockCard = new Card();
         mockCard.setCreator(mockUser);
         Mockito.when(cardRepository.findByIdAndCreator(Mockito.anyLong(), Mockito.any(User.class))).thenReturn(Optional.of(mockCard));
 
-        ResponseEntity<?> response = cardService.deleteCard(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.deleteCard(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.ok(new MessageResponse("Card deleted")).getStatusCode(), response.getStatusCode());
     }
 
     @Test
     public void testDeleteCardForNonAdminWithAdminCard() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         Role adminRole = new Role(ROLE_MEMBER);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
 
 
         Card mockCard = new Card();
         Mockito.when(cardRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(mockCard));
 
-        ResponseEntity<?> response = cardService.deleteCard(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.deleteCard(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.notFound().build().getStatusCode(), response.getStatusCode());
     }
 
     @Test
     public void testDeleteCardNotFound() {
-        String jwtToken = "exampleJwtToken";
         Long cardId = 1L;
 
         Role adminRole = new Role(ROLE_MEMBER);
         Set<Role> adminRoles = Collections.singleton(adminRole);
         User mockUser = new User();
+        mockUser.setId(1L);
         mockUser.setRoles(adminRoles);
-        Mockito.when(jwtUtils.getUserNameFromJwtToken(Mockito.anyString())).thenReturn("exampleEmail");
-        Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.of(mockUser));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+        Mockito.when(userRepository.getReferenceById(Mockito.anyLong())).thenReturn(mockUser);
 
         Mockito.when(cardRepository.findByIdAndCreator(Mockito.anyLong(), Mockito.any(User.class))).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = cardService.deleteCard(cardId, jwtToken);
+        ResponseEntity<?> response = cardService.deleteCard(cardId, principal, null);
 
         Assertions.assertEquals(ResponseEntity.notFound().build().getStatusCode(), response.getStatusCode());
     }
+
+    @Test
+    public void testBoardForMember() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setEmail("member@example.com");
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        CardView done = new CardView(3L, "Card 3", null, null, CardStatus.DONE,
+                LocalDateTime.of(2023, 8, 30, 10, 0), mockUser.getEmail(), 0L);
+        Mockito.when(cardRepository.findNewestPerStatus(1L, 100)).thenReturn(List.of(cardView(2L, mockUser), cardView(1L, mockUser), done));
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        byStatus.put("TODO", 7L);
+        byStatus.put("IN_PROGRESS", 0L);
+        byStatus.put("DONE", 1L);
+        Mockito.when(cardStatsService.readStats(principal)).thenReturn(new CardStatsResponse(false, 8L, byStatus, Map.of()));
+
+        ResponseEntity<?> response = cardService.board(500, principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<CardBoardColumn> columns = ((CardBoardResponse) response.getBody()).getColumns();
+        Assertions.assertEquals(3, columns.size());
+        Assertions.assertEquals("TODO", columns.get(0).getStatus());
+        Assertions.assertEquals(7L, columns.get(0).getTotal());
+        Assertions.assertEquals(2, columns.get(0).getCards().size());
+        Assertions.assertTrue(columns.get(1).getCards().isEmpty());
+        Assertions.assertEquals(List.of(done), columns.get(2).getCards());
+    }
+
+    @Test
+    public void testGetManyForMemberReportsMissingIds() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardRepository.findViewsByIdInAndCreatorId(Set.of(3L, 1L, 2L), 1L))
+                .thenReturn(List.of(cardView(1L, mockUser), cardView(3L, mockUser)));
+
+        ResponseEntity<?> response = cardService.getMany(List.of(3L, 2L, 1L, 3L), principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        CardBatchResponse body = (CardBatchResponse) response.getBody();
+        Assertions.assertEquals(List.of(3L, 1L), body.getCards().stream().map(CardView::getId).toList());
+        Assertions.assertEquals(List.of(2L), body.getMissingIds());
+        Mockito.verify(cardRepository, never()).findViewsByIdIn(Mockito.anyCollection());
+    }
+
+    @Test
+    public void testGetManyRejectsTooManyIds() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_ADMIN)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 101; id++) {
+            ids.add(id);
+        }
+        ResponseEntity<?> response = cardService.getMany(ids, principal);
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Mockito.verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    public void testDeleteCardsForMemberKeepsOwnershipInStatement() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardGroupCount> groups = List.of();
+        Mockito.when(cardRepository.lockGroupsByIdInAndCreatorId(Set.of(1L, 2L), 1L)).thenReturn(groups);
+        Mockito.when(cardRepository.deleteByIdInAndCreatorId(Set.of(1L, 2L), 1L)).thenReturn(1);
+
+        ResponseEntity<?> response = cardService.deleteCards(List.of(1L, 2L, 2L), principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        BulkCardUpdateResponse body = (BulkCardUpdateResponse) response.getBody();
+        Assertions.assertEquals(2, body.getRequested());
+        Assertions.assertEquals(1, body.getAffected());
+        Mockito.verify(cardStatsService).cardsRemoved(groups);
+        Mockito.verify(cardRepository, never()).deleteByIdIn(Mockito.anyCollection());
+    }
+
+    @Test
+    public void testUpdateCardStatusesForAdmin() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_ADMIN)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        List<CardGroupCount> groups = List.of();
+        Mockito.when(cardRepository.lockGroupsByIdIn(Set.of(4L, 5L))).thenReturn(groups);
+        Mockito.when(cardRepository.updateStatusByIdIn(Set.of(4L, 5L), CardStatus.DONE)).thenReturn(2);
+
+        ResponseEntity<?> response = cardService.updateCardStatuses(List.of(4L, 5L), "DONE", principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals(2, ((BulkCardUpdateResponse) response.getBody()).getAffected());
+        Mockito.verify(cardStatsService).cardsMoved(groups, CardStatus.DONE);
+    }
+
+    /**
+     * Sorts cards by createdAt and id as MySQL would, leaving them in primary key order when there is no sort.
+     */
+    private static List<CardSummary> inDatabaseOrder(List<CardSummary> stored, Sort sort) {
+        Comparator<CardSummary> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<CardSummary> next = order.getProperty().equals("createdAt")
+                    ? Comparator.comparing(CardSummary::getCreatedAt)
+                    : Comparator.comparing(CardSummary::getId);
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        List<CardSummary> sorted = new ArrayList<>(stored);
+        if (comparator != null) {
+            sorted.sort(comparator);
+        }
+        return sorted;
+    }
+
+    private static CardPatchState patchState(Long creatorId, CardStatus status, String color, Long version) {
+        CardPatchState state = Mockito.mock(CardPatchState.class);
+        Mockito.when(state.getCreatorId()).thenReturn(creatorId);
+        Mockito.when(state.getCardStatus()).thenReturn(status.ordinal());
+        Mockito.when(state.getColor()).thenReturn(color);
+        Mockito.when(state.getVersion()).thenReturn(version);
+        return state;
+    }
+
+    private static CardView cardView(Long id, User creator) {
+        return new CardView(id, "Card " + id, null, null, CardStatus.TODO,
+                LocalDateTime.of(2023, 8, 30, 10, 0).plusMinutes(id), creator.getEmail(), 0L);
+    }
 }
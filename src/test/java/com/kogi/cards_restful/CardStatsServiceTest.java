@@ -0,0 +1,287 @@
+package com.kogi.cards_restful;
+
+import com.kogi.cards_restful.models.Card;
+import com.kogi.cards_restful.models.CardStat;
+import com.kogi.cards_restful.models.CardStatDimension;
+import com.kogi.cards_restful.models.CardStatId;
+import com.kogi.cards_restful.models.CardStatus;
+import com.kogi.cards_restful.models.Role;
+import com.kogi.cards_restful.models.User;
+import com.kogi.cards_restful.payload.response.CardStatsResponse;
+import com.kogi.cards_restful.repository.CardGroupCount;
+import com.kogi.cards_restful.repository.CardRepository;
+import com.kogi.cards_restful.repository.CardStatRepository;
+import com.kogi.cards_restful.repository.CardStatTotal;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import com.kogi.cards_restful.services.CardStatsServiceImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.kogi.cards_restful.models.ERole.ROLE_ADMIN;
+import static com.kogi.cards_restful.models.ERole.ROLE_MEMBER;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CardStatsServiceTest {
+
+    @Mock
+    private CardStatRepository cardStatRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CardStatsServiceImpl cardStatsService;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(cardStatsService, "reconcileEnabled", true);
+    }
+
+    @Test
+    public void testCardsAddedSumsCounters() {
+        Card first = new Card("First", null, "#000000", CardStatus.TODO, null);
+        Card second = new Card("Second", null, null, CardStatus.TODO, null);
+
+        cardStatsService.cardsAdded(1L, List.of(first, second));
+
+        Mockito.verify(cardStatRepository).addToCount(1L, "STATUS", "TODO", 2);
+        Mockito.verify(cardStatRepository).addToCount(1L, "COLOR", "#000000", 1);
+        Mockito.verify(cardStatRepository).addToCount(1L, "COLOR", "", 1);
+        Mockito.verify(cardStatRepository).addToCount(1L, "CHANGES", "", 1);
+        Mockito.verifyNoMoreInteractions(cardStatRepository);
+    }
+
+    @Test
+    public void testCardChangedMovesOnlyChangedCounters() {
+        cardStatsService.cardChanged(1L, CardStatus.TODO, "#000000", CardStatus.DONE, "#000000");
+
+        Mockito.verify(cardStatRepository).addToCount(1L, "STATUS", "DONE", 1);
+        Mockito.verify(cardStatRepository).addToCount(1L, "STATUS", "TODO", -1);
+        Mockito.verify(cardStatRepository).addToCount(1L, "CHANGES", "", 1);
+        Mockito.verifyNoMoreInteractions(cardStatRepository);
+    }
+
+    @Test
+    public void testCardChangedWithoutStatusOrColorChangeCountsTheWrite() {
+        cardStatsService.cardChanged(1L, CardStatus.TODO, null, CardStatus.TODO, null);
+
+        Mockito.verify(cardStatRepository).addToCount(1L, "CHANGES", "", 1);
+        Mockito.verifyNoMoreInteractions(cardStatRepository);
+    }
+
+    @Test
+    public void testCardsRemovedUncountsEveryGroup() {
+        cardStatsService.cardsRemoved(List.of(group(2L, CardStatus.DONE, "#000000", 3), group(1L, CardStatus.DONE, null, 1)));
+
+        InOrder inOrder = Mockito.inOrder(cardStatRepository);
+        inOrder.verify(cardStatRepository).addToCount(1L, "STATUS", "DONE", -1);
+        inOrder.verify(cardStatRepository).addToCount(1L, "COLOR", "", -1);
+        inOrder.verify(cardStatRepository).addToCount(1L, "CHANGES", "", 1);
+        inOrder.verify(cardStatRepository).addToCount(2L, "STATUS", "DONE", -3);
+        inOrder.verify(cardStatRepository).addToCount(2L, "COLOR", "#000000", -3);
+        inOrder.verify(cardStatRepository).addToCount(2L, "CHANGES", "", 1);
+        Mockito.verifyNoMoreInteractions(cardStatRepository);
+    }
+
+    @Test
+    public void testCardChangedWithoutCreatorCountsNothing() {
+        cardStatsService.cardChanged(null, CardStatus.TODO, null, CardStatus.DONE, null);
+
+        Mockito.verifyNoInteractions(cardStatRepository);
+    }
+
+    @Test
+    public void testCardsMovedSkipsCardsAlreadyInStatus() {
+        cardStatsService.cardsMoved(List.of(group(1L, CardStatus.TODO, "#000000", 2), group(1L, CardStatus.IN_PROGRESS, null, 1),
+                group(1L, CardStatus.DONE, null, 5)), CardStatus.DONE);
+
+        Mockito.verify(cardStatRepository).addToCount(1L, "STATUS", "DONE", 3);
+        Mockito.verify(cardStatRepository).addToCount(1L, "STATUS", "IN_PROGRESS", -1);
+        Mockito.verify(cardStatRepository).addToCount(1L, "STATUS", "TODO", -2);
+        Mockito.verify(cardStatRepository).addToCount(1L, "CHANGES", "", 1);
+        Mockito.verifyNoMoreInteractions(cardStatRepository);
+    }
+
+    @Test
+    public void testGetStatsForMember() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_MEMBER)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardStatRepository.findByCreatorId(1L)).thenReturn(List.of(
+                new CardStat(1L, CardStatDimension.STATUS, "TODO", 3),
+                new CardStat(1L, CardStatDimension.STATUS, "DONE", 1),
+                new CardStat(1L, CardStatDimension.COLOR, "#000000", 4),
+                new CardStat(1L, CardStatDimension.COLOR, "#ffffff", 0),
+                new CardStat(1L, CardStatDimension.CHANGES, "", 9)));
+
+        ResponseEntity<?> response = cardStatsService.getStats(principal);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        CardStatsResponse stats = (CardStatsResponse) response.getBody();
+        Assertions.assertFalse(stats.isGlobal());
+        Assertions.assertEquals(4, stats.getTotal());
+        Assertions.assertEquals(Map.of("TODO", 3L, "IN_PROGRESS", 0L, "DONE", 1L), stats.getByStatus());
+        Assertions.assertEquals(Map.of("#000000", 4L), stats.getByColor());
+        Mockito.verify(cardStatRepository, never()).sumByDimensionAndValue();
+    }
+
+    @Test
+    public void testGetStatsForAdminIsGlobal() {
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setRoles(Collections.singleton(new Role(ROLE_ADMIN)));
+        UserDetailsImpl principal = UserDetailsImpl.build(mockUser);
+
+        Mockito.when(cardStatRepository.sumByDimensionAndValue()).thenReturn(List.of(
+                total(CardStatDimension.STATUS, "IN_PROGRESS", 12L), total(CardStatDimension.CHANGES, "", 40L)));
+
+        ResponseEntity<?> response = cardStatsService.getStats(principal);
+
+        CardStatsResponse stats = (CardStatsResponse) response.getBody();
+        Assertions.assertTrue(stats.isGlobal());
+        Assertions.assertEquals(12, stats.getTotal());
+        Assertions.assertEquals(12L, stats.getByStatus().get("IN_PROGRESS"));
+        Mockito.verify(cardStatRepository, never()).findByCreatorId(Mockito.anyLong());
+    }
+
+    @Test
+    public void testReadChangeCount() {
+        Mockito.when(cardStatRepository.findById(new CardStatId(1L, CardStatDimension.CHANGES, "")))
+                .thenReturn(Optional.of(new CardStat(1L, CardStatDimension.CHANGES, "", 9)));
+
+        Assertions.assertEquals(9, cardStatsService.readChangeCount(1L));
+    }
+
+    @Test
+    public void testReadChangeCountOfAllCardsSumsTheCreators() {
+        Mockito.when(cardStatRepository.sumCountByDimension(CardStatDimension.CHANGES)).thenReturn(17L);
+
+        Assertions.assertEquals(17, cardStatsService.readChangeCount(null));
+        Mockito.verify(cardStatRepository, never()).findById(Mockito.any(CardStatId.class));
+    }
+
+    @Test
+    public void testReconcileCorrectsCountersAfterLocking() {
+        Mockito.when(cardStatRepository.tryLockReconcile()).thenReturn(1);
+        Mockito.when(cardStatRepository.findCreatorIds()).thenReturn(List.of(1L));
+        Mockito.when(cardStatRepository.lockByCreatorId(1L)).thenReturn(List.of(
+                new CardStat(1L, CardStatDimension.STATUS, "TODO", 3),
+                new CardStat(1L, CardStatDimension.COLOR, "", 2),
+                new CardStat(1L, CardStatDimension.CHANGES, "", 9)));
+        Mockito.when(cardRepository.countByStatusForCreatorId(1L)).thenReturn(List.<Object[]>of(new Object[]{CardStatus.TODO, 2L}));
+        Mockito.when(cardRepository.countByColorForCreatorId(1L)).thenReturn(List.<Object[]>of(new Object[]{null, 2L}));
+
+        cardStatsService.reconcile();
+
+        InOrder inOrder = Mockito.inOrder(cardStatRepository, cardRepository);
+        inOrder.verify(cardStatRepository).tryLockReconcile();
+        inOrder.verify(cardStatRepository).lockByCreatorId(1L);
+        inOrder.verify(cardRepository).countByStatusForCreatorId(1L);
+        inOrder.verify(cardStatRepository).addToCount(1L, "STATUS", "TODO", -1);
+        inOrder.verify(cardStatRepository).addToCount(1L, "CHANGES", "", 1);
+        inOrder.verify(cardStatRepository).releaseReconcileLock();
+        Mockito.verify(cardStatRepository, never()).addToCount(Mockito.anyLong(), Mockito.eq("COLOR"), Mockito.anyString(), Mockito.anyLong());
+    }
+
+    @Test
+    public void testReconcileLeavesCorrectCountersAlone() {
+        Mockito.when(cardStatRepository.tryLockReconcile()).thenReturn(1);
+        Mockito.when(cardStatRepository.findCreatorIds()).thenReturn(List.of(1L));
+        Mockito.when(cardStatRepository.lockByCreatorId(1L)).thenReturn(List.of(
+                new CardStat(1L, CardStatDimension.STATUS, "TODO", 2),
+                new CardStat(1L, CardStatDimension.COLOR, "", 2),
+                new CardStat(1L, CardStatDimension.CHANGES, "", 9)));
+        Mockito.when(cardRepository.countByStatusForCreatorId(1L)).thenReturn(List.<Object[]>of(new Object[]{CardStatus.TODO, 2L}));
+        Mockito.when(cardRepository.countByColorForCreatorId(1L)).thenReturn(List.<Object[]>of(new Object[]{null, 2L}));
+
+        cardStatsService.reconcile();
+
+        Mockito.verify(cardStatRepository, never()).addToCount(Mockito.anyLong(), Mockito.anyString(), Mockito.anyString(), Mockito.anyLong());
+        Mockito.verify(cardStatRepository).releaseReconcileLock();
+    }
+
+    @Test
+    public void testReconcileIsSkippedWhileAnotherNodeHoldsTheLock() {
+        Mockito.when(cardStatRepository.tryLockReconcile()).thenReturn(0);
+
+        cardStatsService.reconcile();
+
+        Mockito.verify(cardStatRepository).tryLockReconcile();
+        Mockito.verifyNoMoreInteractions(cardStatRepository);
+        Mockito.verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    public void testReconcileIsSkippedWhenDisabled() {
+        ReflectionTestUtils.setField(cardStatsService, "reconcileEnabled", false);
+
+        cardStatsService.reconcile();
+
+        Mockito.verifyNoInteractions(cardStatRepository, cardRepository, transactionManager);
+    }
+
+    private static CardStatTotal total(CardStatDimension dimension, String value, Long count) {
+        return new CardStatTotal() {
+            @Override
+            public CardStatDimension getDimension() {
+                return dimension;
+            }
+
+            @Override
+            public String getValue() {
+                return value;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+
+    private static CardGroupCount group(Long creatorId, CardStatus status, String color, long count) {
+        return new CardGroupCount() {
+            @Override
+            public Long getCreatorId() {
+                return creatorId;
+            }
+
+            @Override
+            public Integer getCardStatus() {
+                return status.ordinal();
+            }
+
+            @Override
+            public String getColor() {
+                return color;
+            }
+
+            @Override
+            public Long getCardCount() {
+                return count;
+            }
+        };
+    }
+}
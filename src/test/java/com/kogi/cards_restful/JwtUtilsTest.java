@@ -0,0 +1,105 @@
+package com.kogi.cards_restful;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.kogi.cards_restful.security.jwt.JwtUtils;
+import com.kogi.cards_restful.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static com.kogi.cards_restful.models.ERole.ROLE_MEMBER;
+
+public class JwtUtilsTest {
+
+    private static final String SECRET = Base64.getEncoder()
+            .encodeToString("a test secret of at least 256 bits for HS256".getBytes(StandardCharsets.UTF_8));
+
+    private JwtUtils jwtUtils(int expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxSize", 100L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    private String token(JwtUtils jwtUtils) {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(ROLE_MEMBER.name()));
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "member@example.com", null, authorities, 3);
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, authorities));
+    }
+
+    @Test
+    public void testVerifiedTokenIsServedFromCache() {
+        JwtUtils jwtUtils = jwtUtils(60000);
+        String token = token(jwtUtils);
+
+        Claims first = jwtUtils.getValidatedClaims(token);
+        Claims second = jwtUtils.getValidatedClaims(token);
+
+        Assertions.assertEquals("member@example.com", first.getSubject());
+        Assertions.assertEquals("member@example.com", second.getSubject());
+        Assertions.assertEquals(1L, second.get(JwtUtils.USER_ID_CLAIM, Long.class));
+        Assertions.assertEquals(3, second.get(JwtUtils.TOKEN_VERSION_CLAIM, Integer.class));
+        CacheStats stats = jwtUtils.getVerifiedTokenCacheStats();
+        Assertions.assertEquals(1, stats.missCount());
+        Assertions.assertEquals(1, stats.hitCount());
+    }
+
+    @Test
+    public void testCachedClaimsAreSharedAndReadOnly() {
+        JwtUtils jwtUtils = jwtUtils(60000);
+        String token = token(jwtUtils);
+
+        Claims first = jwtUtils.getValidatedClaims(token);
+        Claims second = jwtUtils.getValidatedClaims(token);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> second.put(JwtUtils.USER_ID_CLAIM, 2L));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> second.remove(JwtUtils.USER_ID_CLAIM));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> second.setSubject("admin@example.com"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> second.entrySet().clear());
+        Assertions.assertEquals("member@example.com", jwtUtils.getValidatedClaims(token).getSubject());
+        Assertions.assertEquals(1L, jwtUtils.getValidatedClaims(token).get(JwtUtils.USER_ID_CLAIM, Long.class));
+    }
+
+    @Test
+    public void testCachedTokenExpiresWithTheToken() throws InterruptedException {
+        JwtUtils jwtUtils = jwtUtils(1500);
+        String token = token(jwtUtils);
+        Assertions.assertNotNull(jwtUtils.getValidatedClaims(token));
+
+        // exp is kept in whole seconds, so the token is expired at most 1.5 seconds after it was issued.
+        Thread.sleep(2100);
+
+        Assertions.assertNull(jwtUtils.getValidatedClaims(token));
+        CacheStats stats = jwtUtils.getVerifiedTokenCacheStats();
+        Assertions.assertEquals(2, stats.missCount());
+        Assertions.assertEquals(0, stats.hitCount());
+    }
+
+    @Test
+    public void testTamperedTokenIsRejectedAfterTheOriginalIsCached() {
+        JwtUtils jwtUtils = jwtUtils(60000);
+        String token = token(jwtUtils);
+        Assertions.assertNotNull(jwtUtils.getValidatedClaims(token));
+
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A') + token.substring(signatureStart + 1);
+
+        Assertions.assertNull(jwtUtils.getValidatedClaims(tampered));
+        Assertions.assertNotNull(jwtUtils.getValidatedClaims(token));
+        CacheStats stats = jwtUtils.getVerifiedTokenCacheStats();
+        Assertions.assertEquals(2, stats.missCount());
+        Assertions.assertEquals(1, stats.hitCount());
+    }
+}